@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.error;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker of a single host, shared by all the tasks running in the JVM with the same thresholds. The
+ * circuit opens when the failure rate of the last requests reaches the threshold. While open, no requests are
+ * allowed. After the open duration the circuit becomes half-open and lets through probe requests one at a time.
+ * It closes after {@link #PROBES_TO_CLOSE} successful probes in a row and opens again on the first failed probe.
+ */
+public class CircuitBreaker {
+  private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+  private static final ConcurrentMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+  static final int WINDOW_SIZE = 100;
+  static final int MIN_REQUESTS = 20;
+  static final int PROBES_TO_CLOSE = 3;
+
+  private enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String host;
+  private final double errorRate;
+  private final long openDurationNanos;
+  private final LongSupplier nanoClock;
+
+  // outcomes of the last requests in a ring buffer, true stands for a failure
+  private final boolean[] outcomes = new boolean[WINDOW_SIZE];
+  private int outcomesCount;
+  private int nextOutcome;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedNanos;
+  private long probeStartedNanos;
+  private boolean probeInFlight;
+  private int successfulProbes;
+
+  /**
+   * Returns the breaker of the host with the given thresholds. Stages configured with other thresholds for the same
+   * host get their own breaker.
+   */
+  static CircuitBreaker forHost(String host, double errorRate, long openDurationSeconds) {
+    String key = String.format("%s|%s|%d", host, errorRate, openDurationSeconds);
+    return BREAKERS.computeIfAbsent(key, unused -> new CircuitBreaker(
+      host, errorRate, TimeUnit.SECONDS.toNanos(openDurationSeconds), System::nanoTime));
+  }
+
+  CircuitBreaker(String host, double errorRate, long openDurationNanos, LongSupplier nanoClock) {
+    this.host = host;
+    this.errorRate = errorRate;
+    this.openDurationNanos = openDurationNanos;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * @return true if a request can be sent. In half-open state the caller owns the probe and must report its outcome.
+   */
+  synchronized boolean allowRequest() {
+    long now = nanoClock.getAsLong();
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (now - openedNanos < openDurationNanos) {
+          return false;
+        }
+        LOG.info("Circuit breaker of host '{}' is half-open, probing.", host);
+        state = State.HALF_OPEN;
+        successfulProbes = 0;
+        probeInFlight = false;
+        // fall through
+      case HALF_OPEN:
+        // a probe, which outcome was never reported, does not block the circuit forever
+        if (probeInFlight && now - probeStartedNanos < openDurationNanos) {
+          return false;
+        }
+        probeInFlight = true;
+        probeStartedNanos = now;
+        return true;
+      default:
+        throw new IllegalStateException(String.format("Unexpected circuit breaker state: '%s'", state));
+    }
+  }
+
+  synchronized void onSuccess() {
+    record(false);
+  }
+
+  synchronized void onFailure() {
+    record(true);
+  }
+
+  synchronized boolean isOpen() {
+    return state == State.OPEN;
+  }
+
+  synchronized boolean isClosed() {
+    return state == State.CLOSED;
+  }
+
+  private void record(boolean failed) {
+    switch (state) {
+      case OPEN:
+        // response of a request sent before the circuit opened
+        return;
+      case HALF_OPEN:
+        probeInFlight = false;
+        if (failed) {
+          open();
+        } else if (++successfulProbes >= PROBES_TO_CLOSE) {
+          close();
+        }
+        return;
+      default:
+        if (outcomesCount == WINDOW_SIZE) {
+          if (outcomes[nextOutcome]) {
+            failures--;
+          }
+        } else {
+          outcomesCount++;
+        }
+        outcomes[nextOutcome] = failed;
+        nextOutcome = (nextOutcome + 1) % WINDOW_SIZE;
+        if (failed) {
+          failures++;
+          if (outcomesCount >= MIN_REQUESTS && failures >= errorRate * outcomesCount) {
+            open();
+          }
+        }
+    }
+  }
+
+  private void open() {
+    LOG.warn("Circuit breaker of host '{}' is open. Requests are paused for {} seconds.",
+             host, TimeUnit.NANOSECONDS.toSeconds(openDurationNanos));
+    state = State.OPEN;
+    openedNanos = nanoClock.getAsLong();
+  }
+
+  private void close() {
+    LOG.info("Circuit breaker of host '{}' is closed.", host);
+    state = State.CLOSED;
+    outcomesCount = 0;
+    nextOutcome = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.error;
+
+import io.cdap.plugin.http.common.ratelimit.RequestRateLimiter;
+import io.cdap.plugin.http.sink.batch.HTTPSinkConfig;
+import io.cdap.plugin.http.source.common.BaseHttpSourceConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Decides whether a request to a host can be sent, using the {@link CircuitBreaker} and the {@link RetryBudget}
+ * of the host. The caller reports the outcome of every sent request.
+ */
+public class RequestGuard {
+  private final Double circuitBreakerErrorRate;
+  private final long circuitBreakerOpenDuration;
+  private final Double retryBudget;
+  private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+  private final Map<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+
+  /**
+   * Result of {@link #acquire(String, boolean)}.
+   */
+  public enum Permit {
+    ALLOWED,
+    CIRCUIT_OPEN,
+    RETRY_BUDGET_EXHAUSTED
+  }
+
+  public RequestGuard(BaseHttpSourceConfig config) {
+    this(config.getCircuitBreakerErrorRate(), config.getCircuitBreakerOpenDuration(), config.getRetryBudget());
+  }
+
+  public RequestGuard(HTTPSinkConfig config) {
+    this(config.getCircuitBreakerErrorRate(), config.getCircuitBreakerOpenDuration(), config.getRetryBudget());
+  }
+
+  RequestGuard(@Nullable Double circuitBreakerErrorRate, long circuitBreakerOpenDuration,
+               @Nullable Double retryBudget) {
+    this.circuitBreakerErrorRate = circuitBreakerErrorRate;
+    this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    this.retryBudget = retryBudget;
+  }
+
+  /**
+   * @param url url of the request
+   * @param retry whether the request is a retry of a failed request
+   * @return {@link Permit#ALLOWED} if the request can be sent. The outcome must be reported then.
+   */
+  public Permit acquire(String url, boolean retry) {
+    if (circuitBreakerErrorRate == null && retryBudget == null) {
+      return Permit.ALLOWED;
+    }
+    String host = RequestRateLimiter.getHost(url);
+    RetryBudget budget = getRetryBudget(host);
+    // the retry is taken in the same step as the check, so concurrent retries cannot overdraw the budget
+    if (retry && budget != null && !budget.tryRetry()) {
+      return Permit.RETRY_BUDGET_EXHAUSTED;
+    }
+
+    CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+    if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+      if (retry && budget != null) {
+        // the retry is not sent
+        budget.refundRetry();
+      }
+      return Permit.CIRCUIT_OPEN;
+    }
+
+    if (budget != null && !retry) {
+      budget.onRequest();
+    }
+    return Permit.ALLOWED;
+  }
+
+  /**
+   * Takes a permit for a hedged request, which duplicates a request in flight. Hedges are only sent while the circuit
+   * is closed, so they never take a probe of a half-open circuit, and are paid from the retry budget like retries.
+   * Their outcome is not reported.
+   *
+   * @return true if the hedged request can be sent
+   */
+  public boolean tryHedge(String url) {
+    if (circuitBreakerErrorRate == null && retryBudget == null) {
+      return true;
+    }
+    String host = RequestRateLimiter.getHost(url);
+    CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+    if (circuitBreaker != null && !circuitBreaker.isClosed()) {
+      return false;
+    }
+    RetryBudget budget = getRetryBudget(host);
+    return budget == null || budget.tryRetry();
+  }
+
+  /**
+   * Reports the outcome of a request. A request fails on an I/O error or on a status code, which is configured to
+   * be retried.
+   */
+  public void onResponse(String url, boolean failed) {
+    if (circuitBreakerErrorRate == null) {
+      return;
+    }
+    CircuitBreaker circuitBreaker = getCircuitBreaker(RequestRateLimiter.getHost(url));
+    if (circuitBreaker == null) {
+      return;
+    }
+    if (failed) {
+      circuitBreaker.onFailure();
+    } else {
+      circuitBreaker.onSuccess();
+    }
+  }
+
+  @Nullable
+  private CircuitBreaker getCircuitBreaker(String host) {
+    if (circuitBreakerErrorRate == null) {
+      return null;
+    }
+    return circuitBreakers.computeIfAbsent(host, key -> CircuitBreaker.forHost(key, circuitBreakerErrorRate,
+                                                                               circuitBreakerOpenDuration));
+  }
+
+  @Nullable
+  private RetryBudget getRetryBudget(String host) {
+    if (retryBudget == null) {
+      return null;
+    }
+    return retryBudgets.computeIfAbsent(host, key -> RetryBudget.forHost(key, retryBudget));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.error;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caps retries to a host as a fraction of the requests, shared by all the tasks running in the JVM with the same
+ * ratio. Every first attempt of a request adds the ratio to the balance and every retry takes one from it. A small
+ * reserve lets retries happen at low traffic, and the balance is capped, so a long healthy period does not allow a
+ * retry storm.
+ */
+public class RetryBudget {
+  private static final ConcurrentMap<String, RetryBudget> BUDGETS = new ConcurrentHashMap<>();
+  static final int MIN_RETRIES = 10;
+  static final int REQUESTS_WINDOW = 1000;
+
+  private final double ratio;
+  private final double maxBalance;
+  private double balance = MIN_RETRIES;
+
+  /**
+   * Returns the budget of the host with the given ratio. Stages configured with another ratio for the same host get
+   * their own budget.
+   */
+  static RetryBudget forHost(String host, double ratio) {
+    return BUDGETS.computeIfAbsent(String.format("%s|%s", host, ratio), key -> new RetryBudget(ratio));
+  }
+
+  RetryBudget(double ratio) {
+    this.ratio = ratio;
+    this.maxBalance = MIN_RETRIES + ratio * REQUESTS_WINDOW;
+  }
+
+  synchronized void onRequest() {
+    balance = Math.min(balance + ratio, maxBalance);
+  }
+
+  /**
+   * @return true if a retry is allowed. The retry is taken from the budget.
+   */
+  synchronized boolean tryRetry() {
+    if (balance < 1) {
+      return false;
+    }
+    balance--;
+    return true;
+  }
+
+  /**
+   * Gives back a retry taken by {@link #tryRetry()}, which was not sent.
+   */
+  synchronized void refundRetry() {
+    balance = Math.min(balance + 1, maxBalance);
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.http;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Sends a duplicate (hedged) request, if the response headers of a request did not arrive within the hedge delay.
+ * Whichever request responds first wins, the other one is aborted. The hedge delay is either fixed or taken from a
+ * percentile of the recent latencies. Hedges are capped by a budget, which is a fraction of the requests. The
+ * latencies and the budget of a host are shared by all the tasks running in the JVM with the same settings, so that
+ * short partitions get to hedge too.
+ */
+class HedgedRequestExecutor {
+  private static final Logger LOG = LoggerFactory.getLogger(HedgedRequestExecutor.class);
+  private static final ConcurrentMap<String, HedgedRequestExecutor> EXECUTORS = new ConcurrentHashMap<>();
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "http-hedged-request-" + THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+  static final int LATENCY_WINDOW = 100;
+  static final int MIN_LATENCY_SAMPLES = 20;
+
+  /**
+   * Executes a single request.
+   */
+  interface RequestExecution {
+    CloseableHttpResponse execute(HttpRequestBase request) throws IOException;
+  }
+
+  private final Long hedgeDelayMillis;
+  private final Double hedgePercentile;
+  private final double hedgeBudget;
+  // latencies of the last requests in a ring buffer
+  private final long[] latencies = new long[LATENCY_WINDOW];
+  private int latenciesCount;
+  private int nextLatency;
+  // guarded by this
+  private long requests;
+  private long hedges;
+
+  /**
+   * Returns the executor of the host with the given settings. Sources configured with other settings for the same
+   * host get their own executor.
+   */
+  static HedgedRequestExecutor forHost(String host, @Nullable Long hedgeDelayMillis,
+                                       @Nullable Double hedgePercentile, double hedgeBudget) {
+    String key = String.format("%s|%s|%s|%s", host, hedgeDelayMillis, hedgePercentile, hedgeBudget);
+    return EXECUTORS.computeIfAbsent(key, unused -> new HedgedRequestExecutor(hedgeDelayMillis, hedgePercentile,
+                                                                               hedgeBudget));
+  }
+
+  /**
+   * @param hedgeDelayMillis fixed hedge delay. Used until there are enough samples for the percentile.
+   * @param hedgePercentile percentile of recent latencies used as hedge delay
+   * @param hedgeBudget maximum fraction of requests which can be hedged
+   */
+  HedgedRequestExecutor(@Nullable Long hedgeDelayMillis, @Nullable Double hedgePercentile, double hedgeBudget) {
+    this.hedgeDelayMillis = hedgeDelayMillis;
+    this.hedgePercentile = hedgePercentile;
+    this.hedgeBudget = hedgeBudget;
+  }
+
+  /**
+   * @param hedgePermit takes a permit for a hedged request under the limits of the requests to the host, e.g. a
+   *                    token of the rate limit. The hedge is not sent if no permit is available right away.
+   */
+  CloseableHttpResponse execute(Supplier<HttpRequestBase> requestFactory, RequestExecution execution,
+                                BooleanSupplier hedgePermit) throws IOException {
+    onRequest();
+    Long delayMillis = getHedgeDelayMillis();
+    if (delayMillis == null) {
+      return executeAndRecordLatency(requestFactory.get(), execution);
+    }
+
+    CompletionService<CloseableHttpResponse> completionService = new ExecutorCompletionService<>(EXECUTOR);
+    HttpRequestBase primary = requestFactory.get();
+    Future<CloseableHttpResponse> primaryFuture =
+      completionService.submit(() -> executeAndRecordLatency(primary, execution));
+    HttpRequestBase hedge = null;
+    Future<CloseableHttpResponse> hedgeFuture = null;
+
+    try {
+      Future<CloseableHttpResponse> completed = completionService.poll(delayMillis, TimeUnit.MILLISECONDS);
+      if (completed == null && tryHedge(hedgePermit)) {
+        LOG.debug("No response from '{}' in {} ms, sending a hedged request.", primary.getURI(), delayMillis);
+        hedge = requestFactory.get();
+        HttpRequestBase hedgeRequest = hedge;
+        hedgeFuture = completionService.submit(() -> executeAndRecordLatency(hedgeRequest, execution));
+      }
+      if (completed == null) {
+        completed = completionService.take();
+      }
+
+      try {
+        return getWinner(completed, completed == primaryFuture ? hedge : primary);
+      } catch (IOException e) {
+        if (hedgeFuture == null) {
+          throw e;
+        }
+        // the first request failed, the other one can still succeed
+        completed = completionService.take();
+        return getWinner(completed, completed == primaryFuture ? hedge : primary);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      primary.abort();
+      if (hedge != null) {
+        hedge.abort();
+      }
+      throw new InterruptedIOException(String.format("Interrupted while requesting '%s'", primary.getURI()));
+    }
+  }
+
+  private static CloseableHttpResponse getWinner(Future<CloseableHttpResponse> completed,
+                                                 @Nullable HttpRequestBase loser)
+    throws IOException, InterruptedException {
+    try {
+      CloseableHttpResponse response = completed.get();
+      if (loser != null) {
+        // releases the connection even if the loser has already got the response
+        loser.abort();
+      }
+      return response;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private CloseableHttpResponse executeAndRecordLatency(HttpRequestBase request,
+                                                        RequestExecution execution) throws IOException {
+    long startTime = System.nanoTime();
+    CloseableHttpResponse response = execution.execute(request);
+    recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    return response;
+  }
+
+  private synchronized void onRequest() {
+    requests++;
+  }
+
+  /**
+   * @return true if the hedge budget and the permit allow a hedged request, which is counted then
+   */
+  private boolean tryHedge(BooleanSupplier hedgePermit) {
+    synchronized (this) {
+      if (hedges + 1 > hedgeBudget * requests) {
+        return false;
+      }
+      hedges++;
+    }
+    if (hedgePermit.getAsBoolean()) {
+      return true;
+    }
+    synchronized (this) {
+      hedges--;
+    }
+    return false;
+  }
+
+  private synchronized void recordLatency(long latencyMillis) {
+    latencies[nextLatency] = latencyMillis;
+    nextLatency = (nextLatency + 1) % LATENCY_WINDOW;
+    latenciesCount = Math.min(latenciesCount + 1, LATENCY_WINDOW);
+  }
+
+  /**
+   * @return the hedge delay or null if there is no delay to hedge after yet
+   */
+  @Nullable
+  synchronized Long getHedgeDelayMillis() {
+    if (hedgePercentile == null || latenciesCount < MIN_LATENCY_SAMPLES) {
+      return hedgeDelayMillis;
+    }
+    long[] sorted = Arrays.copyOf(latencies, latenciesCount);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(hedgePercentile / 100 * latenciesCount) - 1;
+    return sorted[Math.max(0, Math.min(index, latenciesCount - 1))];
+  }
+}
@@ -19,6 +19,8 @@ import com.google.auth.oauth2.AccessToken;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
+import io.cdap.plugin.http.common.error.RequestGuard;
+import io.cdap.plugin.http.common.ratelimit.RequestRateLimiter;
 import io.cdap.plugin.http.source.common.BaseHttpSourceConfig;
 import org.apache.http.Header;
 import org.apache.http.HttpHost;
@@ -40,6 +42,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * An http client used to get data from given url. It follows the configurations from {@link BaseHttpSourceConfig}
@@ -49,6 +52,9 @@ public class HttpClient implements Closeable {
   private final BaseHttpSourceConfig config;
   private final StringEntity requestBody;
   private CloseableHttpClient httpClient;
+  // limits of the requests of the caller, which hedged requests are sent under too
+  private RequestGuard requestGuard;
+  private RequestRateLimiter rateLimiter;
 
   private AccessToken accessToken;
 
@@ -65,9 +71,19 @@ public class HttpClient implements Closeable {
     }
   }
 
+  /**
+   * Sets the limits, which the caller sends its requests under. A hedged request is only sent if they allow it
+   * right away.
+   */
+  public void setRequestLimits(@Nullable RequestGuard requestGuard, @Nullable RequestRateLimiter rateLimiter) {
+    this.requestGuard = requestGuard;
+    this.rateLimiter = rateLimiter;
+  }
+
   /**
    * Executes HTTP request with parameters configured in plugin config and returns response.
-   * Is called to load every page by pagination iterator.
+   * Is called to load every page by pagination iterator. If hedging is enabled, a duplicate request may be sent
+   * when the response is slow, and the first response wins.
    *
    * @param uri URI of resource
    * @return a response object
@@ -79,6 +95,24 @@ public class HttpClient implements Closeable {
       httpClient = createHttpClient(uri);
     }
 
+    if (config.isHedgingEnabled()) {
+      HedgedRequestExecutor hedgedRequestExecutor = HedgedRequestExecutor.forHost(
+        RequestRateLimiter.getHost(uri), config.getHedgeDelay(), config.getHedgePercentile(), config.getHedgeBudget());
+      // headers are created up front, so that hedged requests do not refresh the token concurrently
+      Header[] requestHeaders = getRequestHeaders();
+      return hedgedRequestExecutor.execute(() -> createRequest(uri, requestHeaders), httpClient::execute,
+                                           () -> tryAcquireHedge(uri));
+    }
+    return httpClient.execute(createRequest(uri, getRequestHeaders()));
+  }
+
+  private boolean tryAcquireHedge(String uri) {
+    // a rate limit token taken for a hedge, which the guard then rejects, only makes the rate more conservative
+    return (rateLimiter == null || rateLimiter.tryAcquire(uri)) &&
+      (requestGuard == null || requestGuard.tryHedge(uri));
+  }
+
+  private HttpEntityEnclosingRequestBase createRequest(String uri, Header[] requestHeaders) {
     HttpEntityEnclosingRequestBase request = new HttpRequest(URI.create(uri), config.getHttpMethod());
 
     if (requestBody != null) {
@@ -86,9 +120,8 @@ public class HttpClient implements Closeable {
     }
 
     // Set the Request Headers(along with Authorization Header) in the HttpRequest
-    request.setHeaders(getRequestHeaders());
-
-    return httpClient.execute(request);
+    request.setHeaders(requestHeaders);
+    return request;
   }
 
   @Override
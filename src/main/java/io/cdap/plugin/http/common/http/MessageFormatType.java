@@ -24,7 +24,11 @@ public enum MessageFormatType implements EnumWithValue {
 
   JSON,
   FORM,
-  CUSTOM;
+  CUSTOM,
+  AVRO,
+  AVRO_DATUMS,
+  MESSAGEPACK,
+  MULTIPART;
 
   @Override
   public String getValue() {
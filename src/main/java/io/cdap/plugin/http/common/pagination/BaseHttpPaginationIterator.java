@@ -18,6 +18,7 @@ package io.cdap.plugin.http.common.pagination;
 import io.cdap.plugin.http.common.RetryPolicy;
 import io.cdap.plugin.http.common.error.ErrorHandling;
 import io.cdap.plugin.http.common.error.HttpErrorHandler;
+import io.cdap.plugin.http.common.error.RequestGuard;
 import io.cdap.plugin.http.common.error.RetryableErrorHandling;
 import io.cdap.plugin.http.common.http.HttpClient;
 import io.cdap.plugin.http.common.http.HttpResponse;
@@ -25,6 +26,7 @@ import io.cdap.plugin.http.common.pagination.page.BasePage;
 import io.cdap.plugin.http.common.pagination.page.PageFactory;
 import io.cdap.plugin.http.common.pagination.state.PaginationIteratorState;
 import io.cdap.plugin.http.common.pagination.state.UrlPaginationIteratorState;
+import io.cdap.plugin.http.common.ratelimit.RequestRateLimiter;
 import io.cdap.plugin.http.source.common.BaseHttpSourceConfig;
 import org.awaitility.Awaitility;
 import org.awaitility.core.ConditionTimeoutException;
@@ -52,6 +54,7 @@ public abstract class BaseHttpPaginationIterator implements Iterator<BasePage>,
   private final HttpClient httpClient;
   private final HttpErrorHandler httpErrorHandler;
   private final PollInterval pollInterval;
+  private final RequestGuard requestGuard;
 
   protected String nextPageUrl;
   private String currentPageUrl;
@@ -59,12 +62,17 @@ public abstract class BaseHttpPaginationIterator implements Iterator<BasePage>,
   private BasePage page;
   private int httpStatusCode;
   private HttpResponse response;
+  private RequestRateLimiter rateLimiter;
+  private boolean ownsRateLimiter;
+  // requests sent for the current page
+  private int attempts;
 
   public BaseHttpPaginationIterator(BaseHttpSourceConfig config, PaginationIteratorState state) {
     this.config = config;
     this.httpClient = new HttpClient(config);
     this.nextPageUrl = config.getUrl();
     this.httpErrorHandler = new HttpErrorHandler(config);
+    this.requestGuard = new RequestGuard(config);
 
     if (config.getRetryPolicy().equals(RetryPolicy.LINEAR)) {
       pollInterval = FixedPollInterval.fixed(config.getLinearRetryInterval(), TimeUnit.SECONDS);
@@ -72,23 +80,64 @@ public abstract class BaseHttpPaginationIterator implements Iterator<BasePage>,
       pollInterval = IterativePollInterval.iterative(duration -> duration.multiply(2));
     }
 
+    if (config.getMaxRequestsPerSecond() != null) {
+      rateLimiter = new RequestRateLimiter(config.getMaxRequestsPerSecond());
+      ownsRateLimiter = true;
+    }
+    httpClient.setRequestLimits(requestGuard, rateLimiter);
+
     if (state != null) {
       loadFromState(state);
     }
   }
 
+  /**
+   * Replaces the rate limiter created from the config, e.g. with the one shared by all the iterators of a task.
+   * The given limiter is not closed by this iterator.
+   */
+  public void setRateLimiter(@Nullable RequestRateLimiter rateLimiter) {
+    if (ownsRateLimiter) {
+      this.rateLimiter.close();
+      ownsRateLimiter = false;
+    }
+    this.rateLimiter = rateLimiter;
+    httpClient.setRequestLimits(requestGuard, rateLimiter);
+  }
+
   protected abstract String getNextPageUrl(HttpResponse httpResponse, BasePage page);
   public abstract boolean supportsSkippingPages();
 
   protected boolean visitPageAndCheckStatusCode() throws IOException {
+    switch (requestGuard.acquire(nextPageUrl, attempts > 0)) {
+      case CIRCUIT_OPEN:
+        LOG.debug("Circuit breaker is open, not fetching '{}'", nextPageUrl);
+        return false;
+      case RETRY_BUDGET_EXHAUSTED:
+        // the last response is handled as if retries timed out
+        LOG.warn("Retry budget is exhausted, not retrying '{}'", nextPageUrl);
+        return true;
+      default:
+        break;
+    }
+
     if (response != null) { // close previous response
       response.close();
     }
 
-    response = new HttpResponse(getHttpClient().executeHTTP(nextPageUrl));
+    if (rateLimiter != null) {
+      rateLimiter.acquire(nextPageUrl);
+    }
+    attempts++;
+    try {
+      response = new HttpResponse(getHttpClient().executeHTTP(nextPageUrl));
+    } catch (IOException e) {
+      requestGuard.onResponse(nextPageUrl, true);
+      throw e;
+    }
     currentPageUrl = nextPageUrl;
     httpStatusCode = response.getStatusCode();
     RetryableErrorHandling errorHandlingStrategy = httpErrorHandler.getErrorHandlingStrategy(httpStatusCode);
+    requestGuard.onResponse(nextPageUrl, errorHandlingStrategy.shouldRetry());
 
     return !errorHandlingStrategy.shouldRetry();
   }
@@ -101,9 +150,11 @@ public abstract class BaseHttpPaginationIterator implements Iterator<BasePage>,
     }
 
     // response being null, means it's the first page we are loading
-    long delay = response == null ? 0L : config.getWaitTimeBetweenPages();
+    // requests are already spaced by the rate limiter, if there is one
+    long delay = response == null || rateLimiter != null ? 0L : config.getWaitTimeBetweenPages();
     LOG.debug("Fetching '{}'", nextPageUrl);
 
+    attempts = 0;
     try {
       Awaitility
         .await().with()
@@ -115,6 +166,12 @@ public abstract class BaseHttpPaginationIterator implements Iterator<BasePage>,
       // Retries failed. We don't need to do anything here. This will be handled using httpStatusCode below.
     }
 
+    if (attempts == 0) {
+      throw new IllegalStateException(String.format(
+        "Fetching from url '%s' was not attempted in %d seconds, because the circuit breaker of the host is open.",
+        nextPageUrl, config.getMaxRetryDuration()));
+    }
+
     ErrorHandling postRetryStrategy = httpErrorHandler.getErrorHandlingStrategy(httpStatusCode)
       .getAfterRetryStrategy();
 
@@ -213,6 +270,9 @@ public abstract class BaseHttpPaginationIterator implements Iterator<BasePage>,
       if (response != null) {
         response.close();
       }
+      if (ownsRateLimiter) {
+        rateLimiter.close();
+      }
     }
   }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A lock-free token bucket, which spaces requests to a single host. A single bucket per host is shared by all the
+ * tasks running in the JVM. Every task registers its share of the rate, and the bucket allows the sum of the
+ * registered shares. If nothing is registered requests are not limited.
+ */
+class HostTokenBucket {
+  private static final ConcurrentMap<String, HostTokenBucket> BUCKETS = new ConcurrentHashMap<>();
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final DoubleAdder requestsPerSecond = new DoubleAdder();
+  // time when the next token is available
+  private final AtomicLong nextTokenNanos = new AtomicLong(System.nanoTime());
+
+  static HostTokenBucket forHost(String host) {
+    return BUCKETS.computeIfAbsent(host, key -> new HostTokenBucket());
+  }
+
+  void register(double share) {
+    requestsPerSecond.add(share);
+  }
+
+  void unregister(double share) {
+    requestsPerSecond.add(-share);
+  }
+
+  double getRequestsPerSecond() {
+    return requestsPerSecond.sum();
+  }
+
+  /**
+   * Takes a token if it is available right away.
+   *
+   * @return true if the token was taken
+   */
+  boolean tryAcquire() {
+    double rate = requestsPerSecond.sum();
+    if (rate <= 0) {
+      return true;
+    }
+
+    long intervalNanos = (long) (NANOS_PER_SECOND / rate);
+    while (true) {
+      long now = System.nanoTime();
+      long next = nextTokenNanos.get();
+      if (next > now) {
+        return false;
+      }
+      if (nextTokenNanos.compareAndSet(next, now + intervalNanos)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Takes a token, waiting until it is available.
+   */
+  void acquire() throws InterruptedException {
+    double rate = requestsPerSecond.sum();
+    if (rate <= 0) {
+      return;
+    }
+
+    long intervalNanos = (long) (NANOS_PER_SECOND / rate);
+    long now;
+    long tokenNanos;
+    while (true) {
+      now = System.nanoTime();
+      long next = nextTokenNanos.get();
+      // unused tokens are not accumulated, so requests never burst over the rate
+      tokenNanos = Math.max(next, now);
+      if (nextTokenNanos.compareAndSet(next, tokenNanos + intervalNanos)) {
+        break;
+      }
+    }
+
+    if (tokenNanos > now) {
+      TimeUnit.NANOSECONDS.sleep(tokenNanos - now);
+    }
+  }
+}
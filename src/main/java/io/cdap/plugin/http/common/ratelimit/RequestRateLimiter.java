@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.ratelimit;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits requests done by a single task. The task's share of the rate is added to the per-host token buckets,
+ * which are shared with other tasks running in the same JVM, on the first request to the host. The share is
+ * released on close.
+ */
+public class RequestRateLimiter implements Closeable {
+  private final double requestsPerSecond;
+  private final Map<String, HostTokenBucket> buckets = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  /**
+   * @param requestsPerSecond share of the rate allowed to this task
+   */
+  public RequestRateLimiter(double requestsPerSecond) {
+    this.requestsPerSecond = requestsPerSecond;
+  }
+
+  /**
+   * Waits until a request to the host of the url is allowed.
+   */
+  public void acquire(String url) throws InterruptedIOException {
+    try {
+      getBucket(url).acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(String.format("Interrupted while waiting to request '%s'", url));
+    }
+  }
+
+  /**
+   * Takes a request to the host of the url if it is allowed right away, e.g. for an optional hedged request.
+   *
+   * @return true if the request is allowed
+   */
+  public boolean tryAcquire(String url) {
+    return getBucket(url).tryAcquire();
+  }
+
+  private HostTokenBucket getBucket(String url) {
+    return buckets.computeIfAbsent(getHost(url), host -> {
+      HostTokenBucket hostBucket = HostTokenBucket.forHost(host);
+      hostBucket.register(requestsPerSecond);
+      return hostBucket;
+    });
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (HostTokenBucket bucket : buckets.values()) {
+      bucket.unregister(requestsPerSecond);
+    }
+  }
+
+  /**
+   * @return the authority of the url, which identifies the host in the state shared per host
+   */
+  public static String getHost(String url) {
+    try {
+      return new URL(url).getAuthority();
+    } catch (MalformedURLException e) {
+      // will fail on the request itself
+      return url;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the batch size of the sink. The size climbs towards the best throughput in records per second within the
+ * bounds: after a few batches of the current size it steps up or down and keeps going while throughput improves,
+ * turning back when it gets worse. A batch rejected as too large caps the size below half of the rejected size.
+ */
+class AdaptiveBatchSizer {
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+  static final int BATCHES_PER_STEP = 5;
+  static final double STEP_FACTOR = 1.5;
+
+  private final int minSize;
+  private int maxSize;
+  private int size;
+  private boolean growing = true;
+
+  private int stepBatches;
+  private long stepRecords;
+  private long stepNanos;
+  private double lastThroughput = -1;
+
+  /**
+   * @param initialSize batch size to start with
+   * @param minSize lower bound of the batch size
+   * @param maxSize upper bound of the batch size. If it equals the min size, the size is only changed when a batch
+   *                is rejected as too large.
+   */
+  AdaptiveBatchSizer(int initialSize, int minSize, int maxSize) {
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.size = Math.max(minSize, Math.min(initialSize, maxSize));
+  }
+
+  synchronized int getBatchSize() {
+    return size;
+  }
+
+  /**
+   * Records the latency of a successfully sent batch.
+   */
+  synchronized void onBatchSent(int records, long latencyNanos) {
+    // partial batches, e.g. at the end of the task or halves of a split batch, are not representative
+    if (records != size || minSize >= maxSize) {
+      return;
+    }
+    stepRecords += records;
+    stepNanos += latencyNanos;
+    if (++stepBatches < BATCHES_PER_STEP) {
+      return;
+    }
+
+    double throughput = (double) stepRecords * TimeUnit.SECONDS.toNanos(1) / Math.max(1, stepNanos);
+    if (lastThroughput >= 0 && throughput < lastThroughput) {
+      growing = !growing;
+    }
+    lastThroughput = throughput;
+    int nextSize = getNextSize();
+    if (nextSize == size) {
+      // reached a bound
+      growing = !growing;
+      nextSize = getNextSize();
+    }
+    LOG.debug("Batch size {} sent {} records per second, next batch size is {}.", size, (long) throughput, nextSize);
+    setSize(nextSize);
+  }
+
+  /**
+   * Lowers the batch size after the server rejected a batch of the given size as too large.
+   */
+  synchronized void onTooLarge(int rejectedSize) {
+    maxSize = Math.max(1, Math.min(maxSize, rejectedSize / 2));
+    if (size > maxSize) {
+      LOG.info("Batch of {} records was rejected as too large, batch size is lowered to {}.", rejectedSize, maxSize);
+      setSize(maxSize);
+      growing = false;
+      lastThroughput = -1;
+    }
+  }
+
+  private int getNextSize() {
+    int nextSize = growing ? (int) Math.ceil(size * STEP_FACTOR) : (int) Math.floor(size / STEP_FACTOR);
+    return Math.max(Math.min(minSize, maxSize), Math.min(nextSize, maxSize));
+  }
+
+  private void setSize(int size) {
+    this.size = size;
+    stepBatches = 0;
+    stepRecords = 0;
+    stepNanos = 0;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Limits the number of requests in flight with additive increase / multiplicative decrease, similar to TCP
+ * congestion control. The limit grows by one per round of successful requests while latency stays close to the
+ * lowest latency of the recent requests. It is halved on an overload response (429, 503) or when latency grows, at
+ * most once per round. The baseline only covers a window of recent requests, so a single fast response does not
+ * keep the limit down for the rest of the task. The current limit and the number of decreases are reported as task
+ * counters.
+ */
+class AdaptiveConcurrencyLimiter {
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+  static final String COUNTER_CONCURRENCY_LIMIT = "Concurrency limit";
+  static final String COUNTER_MAX_CONCURRENCY_REACHED = "Max concurrency reached";
+  static final String COUNTER_OVERLOAD_DECREASES = "Concurrency decreases on overload";
+  static final String COUNTER_LATENCY_DECREASES = "Concurrency decreases on latency";
+  static final double DECREASE_FACTOR = 0.5;
+  // latency up to this multiple of the lowest latency is considered flat
+  static final double LATENCY_TOLERANCE = 2.0;
+  // number of the last latencies the lowest latency is taken from
+  static final int LATENCY_WINDOW = 100;
+
+  private final int maxLimit;
+  private final LongSupplier nanoClock;
+  private final Counter limitCounter;
+  private final Counter maxLimitReachedCounter;
+  private final Counter overloadDecreasesCounter;
+  private final Counter latencyDecreasesCounter;
+
+  private double limit = 1;
+  private int inFlight;
+  // latencies of the last requests in a ring buffer
+  private final long[] latencies = new long[LATENCY_WINDOW];
+  private int latenciesCount;
+  private int nextLatency;
+  private long lastDecreaseNanos = Long.MIN_VALUE;
+
+  /**
+   * @param maxLimit upper bound of requests in flight
+   * @param context context of the task to report counters to, can be null
+   */
+  AdaptiveConcurrencyLimiter(int maxLimit, @Nullable TaskAttemptContext context) {
+    this(maxLimit, context, System::nanoTime);
+  }
+
+  AdaptiveConcurrencyLimiter(int maxLimit, @Nullable TaskAttemptContext context, LongSupplier nanoClock) {
+    this.maxLimit = maxLimit;
+    this.nanoClock = nanoClock;
+    this.limitCounter = getCounter(context, COUNTER_CONCURRENCY_LIMIT);
+    this.maxLimitReachedCounter = getCounter(context, COUNTER_MAX_CONCURRENCY_REACHED);
+    this.overloadDecreasesCounter = getCounter(context, COUNTER_OVERLOAD_DECREASES);
+    this.latencyDecreasesCounter = getCounter(context, COUNTER_LATENCY_DECREASES);
+    updateLimitCounter();
+  }
+
+  /**
+   * Waits until a request can be sent.
+   *
+   * @return start time of the request, to be passed to {@link #release(long, long, boolean)}
+   */
+  synchronized long acquire() throws InterruptedException {
+    while (inFlight >= getLimit()) {
+      wait();
+    }
+    inFlight++;
+    return nanoClock.getAsLong();
+  }
+
+  /**
+   * Completes a request and adjusts the limit.
+   *
+   * @param startNanos start time returned by {@link #acquire()}
+   * @param latencyNanos duration of the HTTP exchange of the last attempt, without waits between retries, or 0 if
+   *                     it is not known, e.g. on an I/O error
+   * @param overloaded whether the server signalled overload
+   */
+  synchronized void release(long startNanos, long latencyNanos, boolean overloaded) {
+    inFlight--;
+    long now = nanoClock.getAsLong();
+
+    // requests started before the last decrease reflect the old limit
+    boolean canDecrease = startNanos >= lastDecreaseNanos;
+    if (overloaded) {
+      if (canDecrease) {
+        decrease(now, overloadDecreasesCounter, "overload response");
+      }
+    } else if (latencyNanos > 0) {
+      long baselineNanos = getBaselineLatencyNanos();
+      recordLatency(latencyNanos);
+      if (latencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+        if (canDecrease) {
+          decrease(now, latencyDecreasesCounter, "latency increase");
+        }
+      } else {
+        increase();
+      }
+    }
+    notifyAll();
+  }
+
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /**
+   * @return the lowest of the recent latencies, or {@link Long#MAX_VALUE} if there are none yet
+   */
+  private long getBaselineLatencyNanos() {
+    long baselineNanos = Long.MAX_VALUE;
+    for (int i = 0; i < latenciesCount; i++) {
+      baselineNanos = Math.min(baselineNanos, latencies[i]);
+    }
+    return baselineNanos;
+  }
+
+  private void recordLatency(long latencyNanos) {
+    latencies[nextLatency] = latencyNanos;
+    nextLatency = (nextLatency + 1) % LATENCY_WINDOW;
+    latenciesCount = Math.min(latenciesCount + 1, LATENCY_WINDOW);
+  }
+
+  private void increase() {
+    int previousLimit = getLimit();
+    limit = Math.min(maxLimit, limit + 1 / limit);
+    if (getLimit() != previousLimit) {
+      if (getLimit() == maxLimit) {
+        increment(maxLimitReachedCounter);
+      }
+      updateLimitCounter();
+    }
+  }
+
+  private void decrease(long now, @Nullable Counter counter, String reason) {
+    limit = Math.max(1, limit * DECREASE_FACTOR);
+    lastDecreaseNanos = now;
+    LOG.debug("Concurrency limit decreased to {} on {}.", getLimit(), reason);
+    increment(counter);
+    updateLimitCounter();
+  }
+
+  private void updateLimitCounter() {
+    if (limitCounter != null) {
+      limitCounter.setValue(getLimit());
+    }
+  }
+
+  private static void increment(@Nullable Counter counter) {
+    if (counter != null) {
+      counter.increment(1);
+    }
+  }
+
+  @Nullable
+  private static Counter getCounter(@Nullable TaskAttemptContext context, String name) {
+    return context == null ? null : context.getCounter(HTTPRecordWriter.COUNTER_GROUP, name);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.google.common.base.Charsets;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes a batch of records in Avro binary encoding, either as an Avro object container with the schema or as a
+ * sequence of bare datums. The CDAP schema of the records is a valid Avro schema.
+ */
+class AvroMessageEncoder {
+  private static final StructuredRecordDatumWriter DATUM_WRITER = new StructuredRecordDatumWriter();
+  private static final byte[] MAGIC = {'O', 'b', 'j', 1};
+
+  private final boolean container;
+  private final byte[] schemaJson;
+  private final byte[] syncMarker;
+
+  AvroMessageEncoder(Schema schema, boolean container) {
+    this.container = container;
+    this.schemaJson = schema.toString().getBytes(Charsets.UTF_8);
+    UUID uuid = UUID.randomUUID();
+    this.syncMarker = ByteBuffer.allocate(16)
+      .putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+  }
+
+  byte[] encode(List<StructuredRecord> records) {
+    try {
+      ByteArrayOutputStream datums = new ByteArrayOutputStream();
+      BinaryEncoder encoder = new BinaryEncoder(datums);
+      for (StructuredRecord record : records) {
+        DATUM_WRITER.encode(record, encoder);
+      }
+      if (!container) {
+        return datums.toByteArray();
+      }
+
+      ByteArrayOutputStream output = new ByteArrayOutputStream(datums.size() + schemaJson.length + 64);
+      BinaryEncoder header = new BinaryEncoder(output);
+      output.write(MAGIC);
+      // file metadata is a map with a single block of two entries
+      header.writeLong(2);
+      header.writeString("avro.schema");
+      header.writeBytes(schemaJson);
+      header.writeString("avro.codec");
+      header.writeString("null");
+      header.writeLong(0);
+      output.write(syncMarker);
+      if (!records.isEmpty()) {
+        header.writeLong(records.size());
+        header.writeLong(datums.size());
+        datums.writeTo(output);
+        output.write(syncMarker);
+      }
+      return output.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Error encoding Avro message. Reason: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Writes values in Avro binary encoding: zig-zag varints, little-endian floating point numbers and
+   * length-prefixed strings and bytes.
+   */
+  private static final class BinaryEncoder implements Encoder {
+    private final OutputStream output;
+
+    private BinaryEncoder(OutputStream output) {
+      this.output = output;
+    }
+
+    @Override
+    public Encoder writeNull() {
+      return this;
+    }
+
+    @Override
+    public Encoder writeBool(boolean b) throws IOException {
+      output.write(b ? 1 : 0);
+      return this;
+    }
+
+    @Override
+    public Encoder writeInt(int i) throws IOException {
+      return writeLong(i);
+    }
+
+    @Override
+    public Encoder writeLong(long l) throws IOException {
+      long value = (l << 1) ^ (l >> 63);
+      while ((value & ~0x7FL) != 0) {
+        output.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      output.write((int) value);
+      return this;
+    }
+
+    @Override
+    public Encoder writeFloat(float f) throws IOException {
+      int bits = Float.floatToIntBits(f);
+      for (int i = 0; i < 4; i++) {
+        output.write(bits >>> (8 * i));
+      }
+      return this;
+    }
+
+    @Override
+    public Encoder writeDouble(double d) throws IOException {
+      long bits = Double.doubleToLongBits(d);
+      for (int i = 0; i < 8; i++) {
+        output.write((int) (bits >>> (8 * i)));
+      }
+      return this;
+    }
+
+    @Override
+    public Encoder writeString(String s) throws IOException {
+      return writeBytes(s.getBytes(Charsets.UTF_8));
+    }
+
+    @Override
+    public Encoder writeBytes(byte[] bytes) throws IOException {
+      return writeBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Encoder writeBytes(byte[] bytes, int off, int len) throws IOException {
+      writeLong(len);
+      output.write(bytes, off, len);
+      return this;
+    }
+
+    @Override
+    public Encoder writeBytes(ByteBuffer bytes) throws IOException {
+      ByteBuffer buffer = bytes.duplicate();
+      writeLong(buffer.remaining());
+      if (buffer.hasArray()) {
+        output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      } else {
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.get(copy);
+        output.write(copy);
+      }
+      return this;
+    }
+  }
+}
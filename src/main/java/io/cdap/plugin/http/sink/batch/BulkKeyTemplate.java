@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.google.common.base.Charsets;
+import com.google.gson.stream.JsonWriter;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Renders the keys of a batch of records into the url and the body of a single bulk request, e.g. a list of ids
+ * to delete. The {keys} placeholder is replaced by the comma-separated keys in the url and by a JSON array of the
+ * keys in the body. A key of several fields is rendered as colon-separated values in the url and as a JSON object
+ * in the body.
+ */
+class BulkKeyTemplate {
+  static final String KEYS_PLACEHOLDER = "{keys}";
+
+  private final String[] keyFields;
+  private final String charset;
+  @Nullable
+  private final String bodyTemplate;
+
+  BulkKeyTemplate(List<String> keyFields, String charset, @Nullable String bodyTemplate) {
+    this.keyFields = keyFields.toArray(new String[0]);
+    this.charset = charset;
+    this.bodyTemplate = bodyTemplate;
+  }
+
+  /**
+   * @return the url with the placeholder replaced by the url-encoded keys of the records
+   */
+  String renderUrl(String url, List<StructuredRecord> records) {
+    if (!url.contains(KEYS_PLACEHOLDER)) {
+      return url;
+    }
+    StringBuilder keys = new StringBuilder();
+    try {
+      for (StructuredRecord record : records) {
+        if (keys.length() > 0) {
+          keys.append(',');
+        }
+        for (int i = 0; i < keyFields.length; i++) {
+          if (i > 0) {
+            keys.append(':');
+          }
+          keys.append(URLEncoder.encode(String.valueOf((Object) record.get(keyFields[i])), charset));
+        }
+      }
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("Error encoding URL with bulk keys. Reason: " + e.getMessage(), e);
+    }
+    return url.replace(KEYS_PLACEHOLDER, keys);
+  }
+
+  /**
+   * @return the body with the placeholder replaced by the JSON array of the keys of the records, or null if there
+   * is no body template
+   */
+  @Nullable
+  byte[] renderBody(List<StructuredRecord> records) {
+    if (bodyTemplate == null) {
+      return null;
+    }
+    StringWriter keys = new StringWriter();
+    try (JsonWriter writer = new JsonWriter(keys)) {
+      writer.beginArray();
+      for (StructuredRecord record : records) {
+        if (keyFields.length == 1) {
+          writeValue(writer, record.get(keyFields[0]));
+          continue;
+        }
+        writer.beginObject();
+        for (String keyField : keyFields) {
+          writer.name(keyField);
+          writeValue(writer, record.get(keyField));
+        }
+        writer.endObject();
+      }
+      writer.endArray();
+    } catch (IOException e) {
+      // StringWriter doesn't throw IOException
+      throw new IllegalStateException("Error writing bulk keys as JSON. Reason: " + e.getMessage(), e);
+    }
+    return bodyTemplate.replace(KEYS_PLACEHOLDER, keys.toString()).getBytes(Charsets.UTF_8);
+  }
+
+  private static void writeValue(JsonWriter writer, @Nullable Object value) throws IOException {
+    if (value == null) {
+      writer.nullValue();
+    } else if (value instanceof Number) {
+      writer.value((Number) value);
+    } else if (value instanceof Boolean) {
+      writer.value((Boolean) value);
+    } else {
+      writer.value(value.toString());
+    }
+  }
+}
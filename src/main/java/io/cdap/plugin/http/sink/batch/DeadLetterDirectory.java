@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A local or HDFS directory with the requests of batches, which could not be delivered. Every request is kept as
+ * a body file in the wire format and a JSON metadata file with the url, status and response, so that it can be
+ * replayed later. The metadata file is written last, so a request is only listed once it is complete.
+ */
+class DeadLetterDirectory {
+  private static final Gson GSON = new Gson();
+  private static final String METADATA_SUFFIX = ".json";
+  private static final String BODY_SUFFIX = ".body";
+
+  private final Path directory;
+  private final FileSystem fileSystem;
+  private final String filePrefix;
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * @param filePrefix prefix of the files written, which must be unique per writer, e.g. the task attempt id
+   */
+  DeadLetterDirectory(String directory, Configuration conf, String filePrefix) throws IOException {
+    this.directory = new Path(directory);
+    this.fileSystem = this.directory.getFileSystem(conf);
+    this.filePrefix = filePrefix;
+  }
+
+  /**
+   * Writes the request, whose body is null if it has no body.
+   */
+  void write(DeadLetter deadLetter, @Nullable HttpEntity body) throws IOException {
+    String name = String.format("%s-%08d", filePrefix, sequence.incrementAndGet());
+    if (body != null) {
+      try (OutputStream out = fileSystem.create(new Path(directory, name + BODY_SUFFIX), false)) {
+        body.writeTo(out);
+      }
+    }
+    try (OutputStream out = fileSystem.create(new Path(directory, name + METADATA_SUFFIX), false)) {
+      out.write(GSON.toJson(deadLetter).getBytes(Charsets.UTF_8));
+    }
+  }
+
+  /**
+   * @return the metadata files of the requests in the directory, in the order of their names
+   */
+  List<Path> list() throws IOException {
+    if (!fileSystem.exists(directory)) {
+      return Collections.emptyList();
+    }
+    FileStatus[] statuses = fileSystem.listStatus(directory, path -> path.getName().endsWith(METADATA_SUFFIX));
+    List<Path> paths = new ArrayList<>(statuses.length);
+    for (FileStatus status : statuses) {
+      paths.add(status.getPath());
+    }
+    paths.sort(null);
+    return paths;
+  }
+
+  DeadLetter read(Path metadataPath) throws IOException {
+    try (Reader reader = new InputStreamReader(fileSystem.open(metadataPath), Charsets.UTF_8)) {
+      return GSON.fromJson(reader, DeadLetter.class);
+    }
+  }
+
+  /**
+   * @return the body of the request, or null if it has no body
+   */
+  @Nullable
+  byte[] readBody(Path metadataPath) throws IOException {
+    Path bodyPath = getBodyPath(metadataPath);
+    if (!fileSystem.exists(bodyPath)) {
+      return null;
+    }
+    try (InputStream in = fileSystem.open(bodyPath)) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  void delete(Path metadataPath) throws IOException {
+    fileSystem.delete(getBodyPath(metadataPath), false);
+    fileSystem.delete(metadataPath, false);
+  }
+
+  private static Path getBodyPath(Path metadataPath) {
+    String name = metadataPath.getName();
+    return new Path(metadataPath.getParent(), name.substring(0, name.length() - METADATA_SUFFIX.length()) +
+      BODY_SUFFIX);
+  }
+
+  /**
+   * Metadata of a request, which could not be delivered.
+   */
+  static final class DeadLetter {
+    private final String url;
+    private final String method;
+    private final String contentType;
+    private final int statusCode;
+    private final int attempts;
+    private final int records;
+    private final String error;
+    @Nullable
+    private final String response;
+
+    DeadLetter(String url, String method, String contentType, int statusCode, int attempts, int records,
+               String error, @Nullable String response) {
+      this.url = url;
+      this.method = method;
+      this.contentType = contentType;
+      this.statusCode = statusCode;
+      this.attempts = attempts;
+      this.records = records;
+      this.error = error;
+      this.response = response;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    String getContentType() {
+      return contentType;
+    }
+
+    int getRecords() {
+      return records;
+    }
+  }
+}
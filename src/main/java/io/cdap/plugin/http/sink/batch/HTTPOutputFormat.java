@@ -21,6 +21,7 @@ import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobStatus;
 import org.apache.hadoop.mapreduce.OutputCommitter;
 import org.apache.hadoop.mapreduce.OutputFormat;
 import org.apache.hadoop.mapreduce.RecordWriter;
@@ -42,7 +43,7 @@ public class HTTPOutputFormat extends OutputFormat<StructuredRecord, StructuredR
     Configuration hConf = context.getConfiguration();
     HTTPSinkConfig config = GSON.fromJson(hConf.get(CONFIG_KEY), HTTPSinkConfig.class);
     Schema inputSchema = Schema.parseJson(hConf.get(INPUT_SCHEMA_KEY));
-    return new HTTPRecordWriter(config, inputSchema);
+    return new HTTPRecordWriter(config, inputSchema, context);
   }
 
   @Override
@@ -52,12 +53,33 @@ public class HTTPOutputFormat extends OutputFormat<StructuredRecord, StructuredR
 
   @Override
   public OutputCommitter getOutputCommitter(TaskAttemptContext context) {
+    HTTPSinkConfig config = GSON.fromJson(context.getConfiguration().get(CONFIG_KEY), HTTPSinkConfig.class);
+    String progressPath = config.getProgressPath();
     return new OutputCommitter() {
       @Override
       public void setupJob(JobContext jobContext) {
 
       }
 
+      @Override
+      public void commitJob(JobContext jobContext) throws IOException {
+        deleteProgress(jobContext);
+      }
+
+      @Override
+      public void abortJob(JobContext jobContext, JobStatus.State state) throws IOException {
+        deleteProgress(jobContext);
+      }
+
+      /**
+       * Deletes the progress of the tasks, which are not retried anymore.
+       */
+      private void deleteProgress(JobContext jobContext) throws IOException {
+        if (progressPath != null) {
+          TaskProgress.deleteJobDirectory(progressPath, jobContext.getConfiguration(), jobContext.getJobID());
+        }
+      }
+
       @Override
       public void setupTask(TaskAttemptContext taskAttemptContext) {
 
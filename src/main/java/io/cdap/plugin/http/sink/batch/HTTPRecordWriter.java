@@ -19,29 +19,41 @@ package io.cdap.plugin.http.sink.batch;
 import com.google.auth.oauth2.AccessToken;
 import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.http.common.RetryPolicy;
+import io.cdap.plugin.http.common.error.ErrorHandling;
 import io.cdap.plugin.http.common.error.HttpErrorHandler;
+import io.cdap.plugin.http.common.error.RequestGuard;
 import io.cdap.plugin.http.common.error.RetryableErrorHandling;
 import io.cdap.plugin.http.common.http.HttpRequest;
+import io.cdap.plugin.http.common.http.MessageFormatType;
 import io.cdap.plugin.http.common.http.OAuthUtil;
+import io.cdap.plugin.http.common.pagination.page.JSONUtil;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
 import org.awaitility.Awaitility;
 import org.awaitility.Duration;
 import org.awaitility.pollinterval.FixedPollInterval;
@@ -51,26 +63,38 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
@@ -83,30 +107,120 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
   public static final String REQUEST_METHOD_POST = "POST";
   public static final String REQUEST_METHOD_PUT = "PUT";
   public static final String REQUEST_METHOD_DELETE = "DELETE";
+  static final String COUNTER_GROUP = "HTTP Sink";
+  static final String COUNTER_FAILED_RECORDS = "Failed records";
+  static final String COUNTER_COMPACTED_RECORDS = "Compacted records";
+  static final String COUNTER_DEAD_LETTER_RECORDS = "Dead-lettered records";
+  static final String COUNTER_PREVIOUSLY_DELIVERED_RECORDS = "Previously delivered records";
+  private static final int HTTP_PAYLOAD_TOO_LARGE = 413;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+  // maximum number of per-url batches waiting to be filled, if the url contains placeholders
+  private static final int MAX_PENDING_URL_BATCHES = 1000;
 
   private final HTTPSinkConfig config;
+  // buffer per ordered lane, the first one also formats the messages of the other batches
+  private final MessageBuffer[] messageBuffers;
+  // number of the first input record buffered per lane, the task progress does not pass it until it is dispatched
+  private final long[] firstBufferedRecords;
   private final MessageBuffer messageBuffer;
-  private String contentType;
+  private final String contentType;
+  // field sent verbatim as the body of one request per record, null if records are formatted into batches
+  private final String bodyField;
+  private final String bodyContentTypeField;
+  private final boolean binaryBody;
+  // renders the keys of a batch into one bulk request, null if records are sent in the message format
+  private final BulkKeyTemplate bulkKeyTemplate;
+  // boundary of the multipart body of one request per record, null if the message format is not multipart
+  private final String multipartBoundary;
   private String url;
-  private String configURL;
   private List<PlaceholderBean> placeHolderList;
-  private final Map<String, String> headers;
-
+  // records of PUT requests batched per url resolved from placeholders, in the order the batches were started
+  private final Map<String, PendingBatch> pendingUrlBatches = new LinkedHashMap<>();
+  private final long batchLingerNanos;
+  // fields of the key to keep the last record per key in a batch, empty if records are not compacted
+  private final List<String> compactionKeyFields;
+  private final Counter compactedRecordsCounter;
+  // headers of every request, the authorization header is only created again once the access token is renewed
+  private final Header[] requestHeaders;
   private AccessToken accessToken;
+  private Header authorizationHeader;
+  // client with the connection pool and TLS configuration of the writer, shared by all its requests
+  private final CloseableHttpClient httpClient;
+  private final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+  // hosts the basic auth credentials were added for, null if basic auth is not configured
+  private final Set<HttpHost> credentialHosts;
   private final HttpErrorHandler httpErrorHandler;
+  private final RequestGuard requestGuard;
   private final PollInterval pollInterval;
-  private int httpStatusCode;
-  private static int retryCount;
+  private final AdaptiveBatchSizer batchSizer;
+  // how to handle a single record rejected with a client error, null if failed batches are not bisected
+  private final ErrorHandling isolatedRecordHandling;
+  private final Counter failedRecordsCounter;
+  // directory to spill batches, which exhausted their retries, to; null if such batches fail the task
+  private final DeadLetterDirectory deadLetterDirectory;
+  private final Counter deadLetterRecordsCounter;
+  // progress of the task, so that a retried attempt skips the delivered records; null if progress is not kept
+  private final TaskProgress progress;
+  private final Counter previouslyDeliveredRecordsCounter;
+  private long inputRecords;
+  // path to per-item results in the response of a bulk endpoint, null if the response body is ignored
+  private final String itemResultsPath;
+  private final String itemStatusPath;
+  // send batches asynchronously if concurrent requests are allowed
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final ExecutorService executor;
+  // send batches in ordered lanes by key instead, if ordering key fields are set
+  private final OrderedLaneExecutor laneExecutor;
+  private final String[] orderingKeyFields;
+  private final AtomicReference<RuntimeException> asyncFailure = new AtomicReference<>();
+  // the writer is a party, every batch sent asynchronously registers until it is sent
+  private final Phaser inFlightRequests = new Phaser(1);
 
-  HTTPRecordWriter(HTTPSinkConfig config, Schema inputSchema) {
-    this.headers = config.getRequestHeadersMap();
+  public HTTPRecordWriter(HTTPSinkConfig config, Schema inputSchema, @Nullable TaskAttemptContext context) {
     this.config = config;
     this.accessToken = null;
-    this.messageBuffer = new MessageBuffer(
-      config.getMessageFormat(), config.getJsonBatchKey(), config.shouldWriteJsonAsArray(),
-      config.getDelimiterForMessages(), config.getCharset(), config.getBody(), inputSchema
-    );
+    this.orderingKeyFields = config.getOrderingKeyFields().toArray(new String[0]);
+    int maxConcurrentRequests = config.getMaxConcurrentRequests();
+    boolean ordered = maxConcurrentRequests > 1 && orderingKeyFields.length > 0;
+    this.messageBuffers = new MessageBuffer[ordered ? maxConcurrentRequests : 1];
+    for (int i = 0; i < messageBuffers.length; i++) {
+      messageBuffers[i] = new MessageBuffer(
+        config.getMessageFormat(), config.getJsonBatchKey(), config.shouldWriteJsonAsArray(),
+        config.getDelimiterForMessages(), config.getCharset(), config.getBody(), inputSchema,
+        config.getCompactionKeyFields()
+      );
+    }
+    this.messageBuffer = messageBuffers[0];
+    this.firstBufferedRecords = new long[messageBuffers.length];
+    this.bodyField = config.getBodyField();
+    this.bodyContentTypeField = config.getBodyContentTypeField();
+    List<String> bulkKeyFields = config.getBulkKeyFields();
+    this.bulkKeyTemplate = bulkKeyFields.isEmpty() ? null :
+      new BulkKeyTemplate(bulkKeyFields, config.getCharset(), config.getBulkRequestBody());
+    this.multipartBoundary = config.getMessageFormat() == MessageFormatType.MULTIPART && bodyField == null &&
+      bulkKeyTemplate == null ? UUID.randomUUID().toString() : null;
+    if (bulkKeyTemplate != null) {
+      this.contentType = "application/json";
+      this.binaryBody = false;
+    } else if (bodyField != null) {
+      Schema bodySchema = inputSchema.getField(bodyField).getSchema();
+      bodySchema = bodySchema.isNullable() ? bodySchema.getNonNullable() : bodySchema;
+      this.contentType = config.getBodyContentType();
+      this.binaryBody = bodySchema.getType() == Schema.Type.BYTES;
+    } else if (multipartBoundary != null) {
+      this.contentType = messageBuffer.getContentType() + "; boundary=" + multipartBoundary;
+      this.binaryBody = true;
+    } else {
+      this.contentType = messageBuffer.getContentType();
+      this.binaryBody = messageBuffer.isBinary();
+    }
+    this.requestHeaders = createRequestHeaders();
+    this.credentialHosts = Strings.isNullOrEmpty(config.getUsername()) || Strings.isNullOrEmpty(config.getPassword()) ?
+      null : ConcurrentHashMap.newKeySet();
+    this.httpClient = createHttpClient(Math.max(1, maxConcurrentRequests));
     this.httpErrorHandler = new HttpErrorHandler(config);
+    this.requestGuard = new RequestGuard(config);
     if (config.getRetryPolicy().equals(RetryPolicy.LINEAR)) {
       pollInterval = FixedPollInterval.fixed(config.getLinearRetryInterval(), TimeUnit.SECONDS);
     } else {
@@ -114,35 +228,281 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
                                                      Duration.FIVE_HUNDRED_MILLISECONDS);
     }
     url = config.getUrl();
-    placeHolderList = getPlaceholderListFromURL();
+    placeHolderList = bulkKeyTemplate == null ? getPlaceholderListFromURL() : Collections.emptyList();
+    batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(config.getBatchLingerTime());
+    compactionKeyFields = config.getCompactionKeyFields();
+    compactedRecordsCounter = context == null ? null : context.getCounter(COUNTER_GROUP, COUNTER_COMPACTED_RECORDS);
+
+    int batchSize = config.getBatchSize();
+    Integer maxBatchSize = config.getMaxBatchSize();
+    batchSizer = maxBatchSize == null ? new AdaptiveBatchSizer(batchSize, batchSize, batchSize) :
+      new AdaptiveBatchSizer(batchSize, config.getMinBatchSize(), maxBatchSize);
+    isolatedRecordHandling = config.shouldIsolateFailedRecords() ? config.getErrorHandling() : null;
+    failedRecordsCounter = context == null ? null : context.getCounter(COUNTER_GROUP, COUNTER_FAILED_RECORDS);
+    itemResultsPath = config.getItemResultsPath();
+    itemStatusPath = config.getItemStatusPath();
+    deadLetterDirectory = createDeadLetterDirectory(config, context);
+    deadLetterRecordsCounter = context == null ? null :
+      context.getCounter(COUNTER_GROUP, COUNTER_DEAD_LETTER_RECORDS);
+    progress = createTaskProgress(config, context);
+    previouslyDeliveredRecordsCounter = progress == null ? null :
+      context.getCounter(COUNTER_GROUP, COUNTER_PREVIOUSLY_DELIVERED_RECORDS);
+
+    if (ordered) {
+      concurrencyLimiter = null;
+      executor = null;
+      laneExecutor = new OrderedLaneExecutor(maxConcurrentRequests, "http-sink-lane-");
+    } else if (maxConcurrentRequests > 1) {
+      laneExecutor = null;
+      concurrencyLimiter = new AdaptiveConcurrencyLimiter(maxConcurrentRequests, context);
+      AtomicInteger threadCount = new AtomicInteger();
+      executor = Executors.newFixedThreadPool(maxConcurrentRequests, runnable -> {
+        Thread thread = new Thread(runnable, "http-sink-request-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      concurrencyLimiter = null;
+      executor = null;
+      laneExecutor = null;
+    }
   }
 
   @Override
   public void write(StructuredRecord input, StructuredRecord unused) throws IOException {
-    configURL = url;
-    if (config.getMethod().equals(REQUEST_METHOD_POST) || config.getMethod().equals(REQUEST_METHOD_PUT)) {
-      messageBuffer.add(input);
+    throwAsyncFailure();
+    if (progress != null && inputRecords < progress.getPreviouslyDelivered()) {
+      inputRecords++;
+      previouslyDeliveredRecordsCounter.increment(1);
+      return;
+    }
+    inputRecords++;
+    add(input);
+    checkpointProgress();
+  }
+
+  private void add(StructuredRecord input) throws IOException {
+    int lane = getLane(input);
+    if (bulkKeyTemplate == null && config.getMethod().equals(REQUEST_METHOD_DELETE)) {
+      String recordURL = placeHolderList.isEmpty() ? url : updateURLWithPlaceholderValue(input);
+      dispatch(new Batch(recordURL, Collections.emptyList(), null), lane, inputRecords);
+      return;
+    }
+
+    if (bodyField != null || multipartBoundary != null) {
+      String recordURL = placeHolderList.isEmpty() ? url : updateURLWithPlaceholderValue(input);
+      Batch batch = new Batch(recordURL, Collections.singletonList(input),
+                              bodyField == null ? null : getFieldBody(input));
+      batch.contentType = bodyContentTypeField == null ? null : input.get(bodyContentTypeField);
+      dispatch(batch, lane, inputRecords);
+      return;
+    }
+
+    if (!placeHolderList.isEmpty()) {
+      addToUrlBatch(updateURLWithPlaceholderValue(input), input, lane);
+      return;
+    }
+
+    MessageBuffer laneBuffer = messageBuffers[lane];
+    if (laneBuffer.isEmpty()) {
+      firstBufferedRecords[lane] = inputRecords;
+    }
+    if (laneBuffer.add(input)) {
+      onRecordCompacted();
+    }
+    if (laneBuffer.size() >= batchSizer.getBatchSize()) {
+      flushMessageBuffer(lane);
+    }
+  }
+
+  /**
+   * @return the value of the body field, wrapped without a copy if it is bytes
+   */
+  @Nullable
+  private ByteBuffer getFieldBody(StructuredRecord input) {
+    Object value = input.get(bodyField);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof ByteBuffer) {
+      return (ByteBuffer) value;
+    }
+    if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    }
+    return ByteBuffer.wrap(value.toString().getBytes(Charsets.UTF_8));
+  }
+
+  @Nullable
+  private static DeadLetterDirectory createDeadLetterDirectory(HTTPSinkConfig config,
+                                                               @Nullable TaskAttemptContext context) {
+    String deadLetterPath = config.getDeadLetterPath();
+    if (deadLetterPath == null) {
+      return null;
+    }
+    Configuration conf = context == null ? new Configuration() : context.getConfiguration();
+    String filePrefix = context == null ? UUID.randomUUID().toString() : context.getTaskAttemptID().toString();
+    try {
+      return new DeadLetterDirectory(deadLetterPath, conf, filePrefix);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Error opening dead letter directory '%s'. Reason: %s",
+                                                    deadLetterPath, e.getMessage()), e);
+    }
+  }
+
+  @Nullable
+  private static TaskProgress createTaskProgress(HTTPSinkConfig config, @Nullable TaskAttemptContext context) {
+    String progressPath = config.getProgressPath();
+    if (progressPath == null || context == null) {
+      return null;
+    }
+    try {
+      return new TaskProgress(progressPath, context.getConfiguration(), context.getTaskAttemptID());
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Error reading task progress from '%s'. Reason: %s",
+                                                    progressPath, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Records the input records as dispatched up to the first one, which is still buffered in a lane or in a pending
+   * per-url batch.
+   */
+  private void checkpointProgress() throws IOException {
+    if (progress == null) {
+      return;
+    }
+    long dispatchedRecords = inputRecords;
+    for (int lane = 0; lane < messageBuffers.length; lane++) {
+      if (!messageBuffers[lane].isEmpty()) {
+        dispatchedRecords = Math.min(dispatchedRecords, firstBufferedRecords[lane] - 1);
+      }
+    }
+    // pending batches are kept in the order they were started, so the first one holds the first record
+    Iterator<PendingBatch> pendingBatches = pendingUrlBatches.values().iterator();
+    if (pendingBatches.hasNext()) {
+      dispatchedRecords = Math.min(dispatchedRecords, pendingBatches.next().firstRecord - 1);
+    }
+    progress.checkpoint(dispatchedRecords);
+  }
+
+  private void onBatchCompleted(Batch batch) {
+    if (progress == null) {
+      return;
+    }
+    try {
+      progress.onBatchCompleted(batch.sequence);
+    } catch (IOException e) {
+      throw new RuntimeException("Error writing task progress. Reason: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Sends the requests of the dead letter directory again, oldest first. A request is removed once it is sent,
+   * a request which fails again is spilled anew.
+   *
+   * @return the number of requests delivered, not counting the ones spilled anew
+   */
+  public int replayDeadLetters() throws IOException {
+    if (deadLetterDirectory == null) {
+      return 0;
     }
+    int delivered = 0;
+    for (Path path : deadLetterDirectory.list()) {
+      DeadLetterDirectory.DeadLetter deadLetter = deadLetterDirectory.read(path);
+      byte[] body = deadLetterDirectory.readBody(path);
+      Batch batch = new Batch(deadLetter.getUrl(), Collections.emptyList(),
+                              body == null ? null : ByteBuffer.wrap(body));
+      batch.contentType = deadLetter.getContentType();
+      batch.replayed = true;
+      batch.replayedRecords = deadLetter.getRecords();
+      if (replay(batch)) {
+        delivered++;
+      }
+      deadLetterDirectory.delete(path);
+    }
+    return delivered;
+  }
+
+  /**
+   * Sends a replayed request. Its records are not known, so it is neither narrowed down to failed bulk items nor
+   * split, and any failure spills it anew, whatever the error handling of the status code.
+   *
+   * @return true if the request was delivered
+   */
+  private boolean replay(Batch batch) {
+    try {
+      sendWithRetries(batch);
+    } catch (Exception e) {
+      spill(batch, e);
+      return false;
+    }
+    if (httpErrorHandler.getErrorHandlingStrategy(batch.httpStatusCode).getAfterRetryStrategy() !=
+      ErrorHandling.SUCCESS) {
+      spill(batch, new IllegalStateException(String.format("%s request to url '%s' failed with status code '%d'.",
+                                                           config.getMethod(), batch.url, batch.httpStatusCode)));
+      return false;
+    }
+    return true;
+  }
 
-    if (config.getMethod().equals(REQUEST_METHOD_PUT) || config.getMethod().equals(REQUEST_METHOD_DELETE)
-      && !placeHolderList.isEmpty()) {
-      configURL = updateURLWithPlaceholderValue(input);
+  /**
+   * @return the ordered lane of the record, which is the same for all the records with the same key
+   */
+  private int getLane(StructuredRecord input) {
+    if (laneExecutor == null) {
+      return 0;
     }
+    return Math.floorMod(Objects.hashCode(RecordKey.of(input, orderingKeyFields)), laneExecutor.getLaneCount());
+  }
 
-    if (config.getBatchSize() == messageBuffer.size() || config.getMethod().equals(REQUEST_METHOD_DELETE)) {
-      flushMessageBuffer();
+  /**
+   * Sends the buffered records and the pending per-url batches, and waits for the requests in flight, so that
+   * all the records written so far are delivered once it returns.
+   */
+  public void flush() throws IOException {
+    throwAsyncFailure();
+    for (int lane = 0; lane < messageBuffers.length; lane++) {
+      flushMessageBuffer(lane);
     }
+    flushPendingUrlBatches(true);
+    inFlightRequests.arriveAndAwaitAdvance();
+    throwAsyncFailure();
   }
 
   @Override
   public void close(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
-    // Process remaining messages after batch executions.
-    if (!config.getMethod().equals(REQUEST_METHOD_DELETE)) {
-      flushMessageBuffer();
+    try {
+      // Process remaining messages after batch executions.
+      for (int lane = 0; lane < messageBuffers.length; lane++) {
+        flushMessageBuffer(lane);
+      }
+      flushPendingUrlBatches(true);
+      checkpointProgress();
+      if (executor != null) {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      }
+      if (laneExecutor != null) {
+        laneExecutor.shutdown();
+      }
+      throwAsyncFailure();
+    } finally {
+      try {
+        if (progress != null) {
+          // also when the attempt fails, so that a retried attempt skips the batches delivered so far
+          progress.close();
+        }
+      } finally {
+        httpClient.close();
+      }
     }
   }
 
-  private void disableSSLValidation() {
+  /**
+   * @return the socket factory of a TLS context, which trusts all certificates and host names
+   */
+  private static SSLConnectionSocketFactory createTrustAllSocketFactory() {
     TrustManager[] trustAllCerts = new TrustManager[]{new X509TrustManager() {
       public java.security.cert.X509Certificate[] getAcceptedIssuers() {
         return null;
@@ -162,68 +522,156 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
     } catch (KeyManagementException | NoSuchAlgorithmException e) {
       throw new IllegalStateException("Error while installing the trust manager: " + e.getMessage(), e);
     }
-    HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
-    HostnameVerifier allHostsValid = new HostnameVerifier() {
-      public boolean verify(String hostname, SSLSession session) {
-        return true;
-      }
-    };
-    HttpsURLConnection.setDefaultHostnameVerifier(allHostsValid);
+    return new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
   }
 
-  private boolean executeHTTPServiceAndCheckStatusCode() throws IOException {
-    LOG.debug("HTTP Request Attempt No. : {}", ++retryCount);
-    CloseableHttpClient httpClient = createHttpClient(configURL);
+  private boolean executeHTTPServiceAndCheckStatusCode(Batch batch) throws IOException {
+    switch (requestGuard.acquire(batch.url, batch.attempts > 0)) {
+      case CIRCUIT_OPEN:
+        LOG.debug("Circuit breaker is open, not sending {} request to url '{}'.", config.getMethod(), batch.url);
+        return false;
+      case RETRY_BUDGET_EXHAUSTED:
+        throw new IllegalStateException(String.format(
+          "Retry budget is exhausted, not retrying %s request to url '%s', which returned status code '%d'.",
+          config.getMethod(), batch.url, batch.httpStatusCode));
+      default:
+        break;
+    }
+    LOG.debug("HTTP Request Attempt No. : {}", ++batch.attempts);
 
     CloseableHttpResponse response = null;
+    String responseBody = null;
+    HttpEntity requestBody = createEntity(batch);
     try {
-      URL url = new URL(configURL);
+      URL url = new URL(batch.url);
       HttpEntityEnclosingRequestBase request = new HttpRequest(URI.create(String.valueOf(url)),
         config.getMethod());
-
-      if (url.getProtocol().equalsIgnoreCase("https")) {
-        // Disable SSLv3
-        System.setProperty("https.protocols", "TLSv1,TLSv1.1,TLSv1.2");
-        if (config.getDisableSSLValidation()) {
-          disableSSLValidation();
-        }
+      if (credentialHosts != null) {
+        addCredentials(url);
       }
 
-      if (!messageBuffer.isEmpty()) {
-        String requestBodyString = messageBuffer.getMessage();
-        if (requestBodyString != null) {
-          StringEntity requestBody = new StringEntity(requestBodyString, Charsets.UTF_8.toString());
-          request.setEntity(requestBody);
-        }
+      if (requestBody != null) {
+        request.setEntity(requestBody);
       }
 
-      request.setHeaders(getRequestHeaders());
+      request.setHeaders(requestHeaders);
+      Header authorization = getAuthorizationHeader();
+      if (authorization != null) {
+        request.addHeader(authorization);
+      }
+      if (batch.contentType != null) {
+        request.setHeader("Content-Type", batch.contentType);
+      }
 
+      // unknown until the attempt gets a response
+      batch.latencyNanos = 0;
+      long startNanos = System.nanoTime();
       response = httpClient.execute(request);
+      batch.latencyNanos = System.nanoTime() - startNanos;
 
-      httpStatusCode = response.getStatusLine().getStatusCode();
-      LOG.debug("Response HTTP Status code: {}", httpStatusCode);
+      batch.httpStatusCode = response.getStatusLine().getStatusCode();
+      LOG.debug("Response HTTP Status code: {}", batch.httpStatusCode);
+      if (batch.httpStatusCode == HTTP_TOO_MANY_REQUESTS || batch.httpStatusCode == HTTP_SERVICE_UNAVAILABLE) {
+        batch.overloaded = true;
+      }
+      if ((itemResultsPath != null || deadLetterDirectory != null) && response.getEntity() != null) {
+        responseBody = EntityUtils.toString(response.getEntity(), Charsets.UTF_8);
+        batch.responseBody = responseBody;
+      }
 
     } catch (MalformedURLException | ProtocolException e) {
       throw new IllegalStateException("Error opening url connection. Reason: " + e.getMessage(), e);
     } catch (IOException e) {
-      LOG.warn("Error making {} request to url {}.", config.getMethod(), config.getUrl());
+      LOG.warn("Error making {} request to url '{}'.", config.getMethod(), batch.url, e);
+      requestGuard.onResponse(batch.url, true);
     } finally {
       if (response != null) {
+        // a consumed response returns its connection to the pool for the next request
+        EntityUtils.consumeQuietly(response.getEntity());
         response.close();
       }
     }
-    RetryableErrorHandling errorHandlingStrategy = httpErrorHandler.getErrorHandlingStrategy(httpStatusCode);
+    if (response != null && batch.httpStatusCode == HTTP_PAYLOAD_TOO_LARGE && batch.records.size() > 1) {
+      // the batch is split and its halves are sent instead
+      requestGuard.onResponse(batch.url, false);
+      batch.tooLarge = true;
+      return true;
+    }
+    RetryableErrorHandling errorHandlingStrategy = httpErrorHandler.getErrorHandlingStrategy(batch.httpStatusCode);
     boolean shouldRetry = errorHandlingStrategy.shouldRetry();
-    if (!shouldRetry) {
-      messageBuffer.clear();
-      retryCount = 0;
+    if (response != null) {
+      requestGuard.onResponse(batch.url, shouldRetry);
+    }
+    if (itemResultsPath != null && responseBody != null && errorHandlingStrategy == RetryableErrorHandling.SUCCESS &&
+      !batch.replayed) {
+      return handleItemResults(batch, responseBody);
     }
     return !shouldRetry;
   }
 
+  /**
+   * Handles the per-item results of a bulk request, which succeeded as a whole. Records of the items, whose status
+   * is retried, replace the records of the batch, so that only they are sent on the next attempt. Records of the
+   * items, whose status stops the pipeline, are kept aside and handled once the batch is sent.
+   *
+   * @return true if no item should be retried
+   */
+  private boolean handleItemResults(Batch batch, String responseBody) {
+    JsonElement root = JSONUtil.toJsonElement(responseBody);
+    JsonElement items = root.isJsonObject() ?
+      JSONUtil.getJsonElementByPath(root.getAsJsonObject(), itemResultsPath, Collections.emptyList()).get() : root;
+    if (items == null || !items.isJsonArray() || items.getAsJsonArray().size() != batch.records.size()) {
+      throw new IllegalStateException(String.format(
+        "Response of %s request to url '%s' has no array of %d items at path '%s': %s",
+        config.getMethod(), batch.url, batch.records.size(), itemResultsPath, responseBody));
+    }
+
+    JsonArray results = items.getAsJsonArray();
+    List<StructuredRecord> retriedRecords = new ArrayList<>();
+    for (int i = 0; i < results.size(); i++) {
+      int status = getItemStatus(results.get(i));
+      RetryableErrorHandling strategy = httpErrorHandler.getErrorHandlingStrategy(status);
+      if (strategy.shouldRetry()) {
+        retriedRecords.add(batch.records.get(i));
+      } else if (strategy.getAfterRetryStrategy() == ErrorHandling.STOP) {
+        if (batch.stoppedRecords.isEmpty()) {
+          batch.stoppedStatusCode = status;
+          batch.stoppedResponseBody = responseBody;
+        }
+        batch.stoppedRecords.add(batch.records.get(i));
+      } else if (strategy.getAfterRetryStrategy() != ErrorHandling.SUCCESS) {
+        StructuredRecord record = batch.records.get(i);
+        handleFailedRecord(strategy.getAfterRetryStrategy(), batch.url, status,
+                           ByteBuffer.wrap(messageBuffer.getMessageBytes(Collections.singletonList(record))));
+      }
+    }
+    if (retriedRecords.isEmpty()) {
+      return true;
+    }
+    LOG.debug("{} of {} items of the batch to url '{}' failed, retrying them.",
+              retriedRecords.size(), batch.records.size(), batch.url);
+    Batch retriedBatch = createBatch(bulkKeyTemplate == null ? batch.url : url, retriedRecords);
+    batch.url = retriedBatch.url;
+    batch.records = retriedBatch.records;
+    batch.body = retriedBatch.body;
+    return false;
+  }
+
+  private int getItemStatus(JsonElement item) {
+    JsonElement status = item.isJsonObject() ?
+      JSONUtil.getJsonElementByPath(item.getAsJsonObject(), itemStatusPath, Collections.emptyList()).get() : item;
+    if (status == null || !status.isJsonPrimitive()) {
+      throw new IllegalStateException(String.format("Item '%s' has no status at path '%s'.", item, itemStatusPath));
+    }
+    try {
+      return status.getAsInt();
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException(String.format("Item '%s' has invalid status '%s'.", item, status), e);
+    }
+  }
+
 
-  public CloseableHttpClient createHttpClient(String pageUriStr) throws IOException {
+  private CloseableHttpClient createHttpClient(int maxConnections) {
     HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
 
     // set timeouts
@@ -235,16 +683,16 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
     requestBuilder.setConnectionRequestTimeout(connectTimeoutMillis.intValue());
     httpClientBuilder.setDefaultRequestConfig(requestBuilder.build());
 
-    // basic auth
-    CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-    if (!Strings.isNullOrEmpty(config.getUsername()) && !Strings.isNullOrEmpty(config.getPassword())) {
-      URI uri = URI.create(pageUriStr);
-      AuthScope authScope = new AuthScope(new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme()));
-      credentialsProvider.setCredentials(authScope,
-        new UsernamePasswordCredentials(config.getUsername(), config.getPassword()));
+    // one pooled connection per concurrent request
+    httpClientBuilder.setMaxConnTotal(maxConnections);
+    httpClientBuilder.setMaxConnPerRoute(maxConnections);
+
+    // TLS with the protocols enabled by the JVM, which do not include SSLv3
+    if (Boolean.TRUE.equals(config.getDisableSSLValidation())) {
+      httpClientBuilder.setSSLSocketFactory(createTrustAllSocketFactory());
     }
 
-    // proxy and proxy auth
+    // proxy and proxy auth, basic auth is added per host of the requests
     if (!Strings.isNullOrEmpty(config.getProxyUrl())) {
       HttpHost proxyHost = HttpHost.create(config.getProxyUrl());
       if (!Strings.isNullOrEmpty(config.getProxyUsername()) && !Strings.isNullOrEmpty(config.getProxyPassword())) {
@@ -259,20 +707,22 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
     return httpClientBuilder.build();
   }
 
-  private Header[] getRequestHeaders() throws IOException {
-    ArrayList<Header> clientHeaders = new ArrayList<>();
-
-    if (accessToken == null || OAuthUtil.tokenExpired(accessToken)) {
-      accessToken = OAuthUtil.getAccessToken(config);
-    }
-
-    if (accessToken != null) {
-      Header authorizationHeader = getAuthorizationHeader(accessToken);
-      if (authorizationHeader != null) {
-        clientHeaders.add(authorizationHeader);
-      }
+  /**
+   * Adds the basic auth credentials for the host of the url, unless they were added by an earlier request.
+   */
+  private void addCredentials(URL url) {
+    HttpHost host = new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
+    if (credentialHosts.add(host)) {
+      credentialsProvider.setCredentials(new AuthScope(host),
+        new UsernamePasswordCredentials(config.getUsername(), config.getPassword()));
     }
+  }
 
+  /**
+   * @return the headers sent with every request, besides of the authorization header
+   */
+  private Header[] createRequestHeaders() {
+    Map<String, String> headers = new LinkedHashMap<>(config.getRequestHeadersMap());
     headers.put("Request-Method", config.getMethod().toUpperCase());
     headers.put("Instance-Follow-Redirects", String.valueOf(config.getFollowRedirects()));
     headers.put("charset", config.getCharset());
@@ -283,18 +733,26 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
       }
     }
 
-    // set default headers
-    if (headers != null) {
-      for (Map.Entry<String, String> headerEntry : this.headers.entrySet()) {
-        clientHeaders.add(new BasicHeader(headerEntry.getKey(), headerEntry.getValue()));
-      }
+    List<Header> clientHeaders = new ArrayList<>(headers.size());
+    for (Map.Entry<String, String> headerEntry : headers.entrySet()) {
+      clientHeaders.add(new BasicHeader(headerEntry.getKey(), headerEntry.getValue()));
     }
-
-    return clientHeaders.toArray(new Header[clientHeaders.size()]);
+    return clientHeaders.toArray(new Header[0]);
   }
 
-  private Header getAuthorizationHeader(AccessToken accessToken) {
-    return new BasicHeader("Authorization", String.format("Bearer %s", accessToken.getTokenValue()));
+  /**
+   * @return the authorization header of the access token, which is renewed once it expires, or null if the requests
+   * are not authorized by a token
+   */
+  // synchronized, since batches can be sent concurrently
+  @Nullable
+  private synchronized Header getAuthorizationHeader() throws IOException {
+    if (accessToken == null || OAuthUtil.tokenExpired(accessToken)) {
+      accessToken = OAuthUtil.getAccessToken(config);
+      authorizationHeader = accessToken == null ? null :
+        new BasicHeader("Authorization", String.format("Bearer %s", accessToken.getTokenValue()));
+    }
+    return authorizationHeader;
   }
 
   /**
@@ -332,25 +790,383 @@ public class HTTPRecordWriter extends RecordWriter<StructuredRecord, StructuredR
   }
 
   /**
-   * Clears the message buffer if it is empty and the HTTP method is not 'DELETE'.
+   * Sends the messages in the buffer of the lane, unless it is empty, and clears the buffer.
+   */
+  private void flushMessageBuffer(int lane) throws IOException {
+    MessageBuffer laneBuffer = messageBuffers[lane];
+    if (laneBuffer.isEmpty()) {
+      return;
+    }
+    Batch batch = bulkKeyTemplate == null ?
+      new Batch(url, laneBuffer.getRecords(), ByteBuffer.wrap(laneBuffer.getMessageBytes(laneBuffer.getRecords()))) :
+      createBatch(url, laneBuffer.getRecords());
+    laneBuffer.clear();
+    dispatch(batch, lane, firstBufferedRecords[lane]);
+  }
+
+  /**
+   * Adds the record to the batch of the given url, which is sent once it is full. Afterwards, sends the batches
+   * which are older than the linger time.
+   */
+  private void addToUrlBatch(String recordURL, StructuredRecord input, int lane) throws IOException {
+    PendingBatch pendingBatch = pendingUrlBatches.get(recordURL);
+    if (pendingBatch == null) {
+      pendingBatch = new PendingBatch(System.nanoTime(), lane, inputRecords, compactionKeyFields);
+      pendingUrlBatches.put(recordURL, pendingBatch);
+    }
+    if (pendingBatch.add(input)) {
+      onRecordCompacted();
+    }
+    if (pendingBatch.records.size() >= batchSizer.getBatchSize()) {
+      pendingUrlBatches.remove(recordURL);
+      dispatch(createBatch(recordURL, pendingBatch.records), pendingBatch.lane, pendingBatch.firstRecord);
+    }
+    flushPendingUrlBatches(false);
+  }
+
+  /**
+   * Sends the pending per-url batches, oldest first. Unless all of them are sent, only the ones older than the linger
+   * time are sent, or the oldest ones if there are too many pending batches.
+   */
+  private void flushPendingUrlBatches(boolean all) throws IOException {
+    long nowNanos = System.nanoTime();
+    Iterator<Map.Entry<String, PendingBatch>> iterator = pendingUrlBatches.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, PendingBatch> entry = iterator.next();
+      PendingBatch pendingBatch = entry.getValue();
+      if (!all && nowNanos - pendingBatch.startNanos < batchLingerNanos &&
+        pendingUrlBatches.size() <= MAX_PENDING_URL_BATCHES) {
+        break;
+      }
+      iterator.remove();
+      dispatch(createBatch(entry.getKey(), pendingBatch.records), pendingBatch.lane, pendingBatch.firstRecord);
+    }
+  }
+
+  /**
+   * Sends the batch. If concurrent requests are allowed, the batch is sent asynchronously once the concurrency
+   * limit allows, or after the previous batches of its lane if the batches are ordered. The task progress does not
+   * pass the first input record of the batch until the batch completes.
+   */
+  private void dispatch(Batch batch, int lane, long firstRecord) throws IOException {
+    if (progress != null) {
+      batch.sequence = progress.onBatchDispatched(firstRecord);
+    }
+    if (laneExecutor != null) {
+      Runnable task = trackInFlight(() -> sendAsync(batch));
+      try {
+        laneExecutor.execute(lane, task);
+      } catch (InterruptedException e) {
+        inFlightRequests.arriveAndDeregister();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting to send a batch.");
+      }
+      return;
+    }
+    if (executor == null) {
+      send(batch);
+      onBatchCompleted(batch);
+      return;
+    }
+
+    long startNanos;
+    try {
+      startNanos = concurrencyLimiter.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to send a batch.");
+    }
+    executor.execute(trackInFlight(() -> {
+      try {
+        sendAsync(batch);
+      } finally {
+        concurrencyLimiter.release(startNanos, batch.latencyNanos, batch.overloaded);
+      }
+    }));
+  }
+
+  /**
+   * @return the task, which is counted as in flight from now on until it completes
+   */
+  private Runnable trackInFlight(Runnable task) {
+    inFlightRequests.register();
+    return () -> {
+      try {
+        task.run();
+      } finally {
+        inFlightRequests.arriveAndDeregister();
+      }
+    };
+  }
+
+  /**
+   * Sends the batch on a request thread, keeping the failure to rethrow it on the writer thread.
    */
-  private void flushMessageBuffer() {
-    if (messageBuffer.isEmpty() && !config.getMethod().equals(REQUEST_METHOD_DELETE)) {
+  private void sendAsync(Batch batch) {
+    if (asyncFailure.get() != null) {
+      // the task fails anyway, a later batch of the lane must not overtake the failed one
       return;
     }
-    contentType = messageBuffer.getContentType();
     try {
-      Awaitility
-        .await().with()
-        .pollInterval(pollInterval)
-        .pollDelay(config.getWaitTimeBetweenPages(), TimeUnit.MILLISECONDS)
-        .timeout(config.getMaxRetryDuration(), TimeUnit.SECONDS)
-        .until(this::executeHTTPServiceAndCheckStatusCode);
+      send(batch);
+      onBatchCompleted(batch);
+    } catch (RuntimeException e) {
+      asyncFailure.compareAndSet(null, e);
+    }
+  }
+
+  private void send(Batch batch) {
+    try {
+      sendWithRetries(batch);
     } catch (Exception e) {
+      if (deadLetterDirectory != null) {
+        spill(batch, e);
+        handleStoppedRecords(batch);
+        return;
+      }
       throw new RuntimeException("Error while executing http request for remaining input messages " +
                                    "after the batch execution. " + e);
     }
-    messageBuffer.clear();
+    handleStoppedRecords(batch);
+
+    if (batch.tooLarge) {
+      int size = batch.records.size();
+      LOG.debug("Batch of {} records to url '{}' is too large, sending it in halves.", size, batch.url);
+      batchSizer.onTooLarge(size);
+      send(createPart(batch, 0, size / 2));
+      send(createPart(batch, size / 2, size));
+      return;
+    }
+    if (isolatedRecordHandling != null && isRejectedByClientError(batch)) {
+      int size = batch.records.size();
+      if (size > 1) {
+        LOG.debug("Batch of {} records to url '{}' failed with status code '{}', bisecting it.",
+                  size, batch.url, batch.httpStatusCode);
+        send(createPart(batch, 0, size / 2));
+        send(createPart(batch, size / 2, size));
+      } else {
+        handleFailedRecord(isolatedRecordHandling, batch.url, batch.httpStatusCode, batch.body);
+      }
+      return;
+    }
+    batchSizer.onBatchSent(batch.records.size(), batch.latencyNanos);
+  }
+
+  /**
+   * Sends the request of the batch until its status code is not retried, or the retries time out.
+   */
+  private void sendWithRetries(Batch batch) {
+    Awaitility
+      .await().with()
+      .pollInterval(pollInterval)
+      .pollDelay(config.getWaitTimeBetweenPages(), TimeUnit.MILLISECONDS)
+      .timeout(config.getMaxRetryDuration(), TimeUnit.SECONDS)
+      .until(() -> executeHTTPServiceAndCheckStatusCode(batch));
+  }
+
+  /**
+   * Fails the task on the records of the bulk items, whose status stops the pipeline, or spills only them to the dead
+   * letter directory. The other items of the batch are already delivered, retried or handled at this point.
+   */
+  private void handleStoppedRecords(Batch batch) {
+    if (batch.stoppedRecords.isEmpty()) {
+      return;
+    }
+    Batch stoppedBatch = createBatch(bulkKeyTemplate == null ? batch.url : url, batch.stoppedRecords);
+    if (deadLetterDirectory == null) {
+      handleFailedRecord(ErrorHandling.STOP, stoppedBatch.url, batch.stoppedStatusCode, stoppedBatch.body);
+      return;
+    }
+    stoppedBatch.attempts = batch.attempts;
+    stoppedBatch.httpStatusCode = batch.stoppedStatusCode;
+    stoppedBatch.responseBody = batch.stoppedResponseBody;
+    spill(stoppedBatch, new IllegalStateException(String.format(
+      "%d items of %s request to url '%s' failed with status code '%d'.",
+      batch.stoppedRecords.size(), config.getMethod(), stoppedBatch.url, batch.stoppedStatusCode)));
+  }
+
+  /**
+   * Writes the request of the batch to the dead letter directory, so that the task goes on with the next batches.
+   */
+  private void spill(Batch batch, Exception failure) {
+    int records = batch.records.isEmpty() ? batch.replayedRecords : batch.records.size();
+    LOG.warn("{} request of {} records to url '{}' failed after {} attempts, writing it to the dead letter " +
+               "directory.", config.getMethod(), records, batch.url, batch.attempts, failure);
+    DeadLetterDirectory.DeadLetter deadLetter = new DeadLetterDirectory.DeadLetter(
+      batch.url, config.getMethod(), batch.contentType == null ? contentType : batch.contentType,
+      batch.httpStatusCode, batch.attempts, records, String.valueOf(failure.getMessage()), batch.responseBody);
+    try {
+      deadLetterDirectory.write(deadLetter, createEntity(batch));
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Error writing %s request to url '%s' to the dead letter directory.",
+                                               config.getMethod(), batch.url), e);
+    }
+    if (deadLetterRecordsCounter != null) {
+      deadLetterRecordsCounter.increment(records);
+    }
+  }
+
+  /**
+   * @return true if the batch failed with a client error, which is not retried, and is not considered a success
+   */
+  private boolean isRejectedByClientError(Batch batch) {
+    return batch.httpStatusCode >= 400 && batch.httpStatusCode < 500 &&
+      httpErrorHandler.getErrorHandlingStrategy(batch.httpStatusCode).getAfterRetryStrategy() != ErrorHandling.SUCCESS;
+  }
+
+  private void handleFailedRecord(ErrorHandling handling, String url, int httpStatusCode,
+                                  @Nullable ByteBuffer body) {
+    String message = String.format("%s request to url '%s' failed with status code '%d' for the record: %s",
+                                   config.getMethod(), url, httpStatusCode, describeBody(body));
+    switch (handling) {
+      case STOP:
+        throw new IllegalStateException(message);
+      case SEND:
+        LOG.error(message);
+        break;
+      case SKIP:
+        LOG.warn("{} request to url '{}' failed with status code '{}', skipping the record.",
+                 config.getMethod(), url, httpStatusCode);
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unexpected error handling: '%s'", handling));
+    }
+    if (failedRecordsCounter != null) {
+      failedRecordsCounter.increment(1);
+    }
+  }
+
+  /**
+   * @return the body as text, or only its size if the message format is binary
+   */
+  private String describeBody(@Nullable ByteBuffer body) {
+    if (body == null) {
+      return null;
+    }
+    return binaryBody ? body.remaining() + " bytes" : Charsets.UTF_8.decode(body.duplicate()).toString();
+  }
+
+  /**
+   * @return the request body of the batch, or null if it has no body
+   */
+  @Nullable
+  private HttpEntity createEntity(Batch batch) {
+    if (batch.body != null) {
+      return createEntity(batch.body);
+    }
+    if (multipartBoundary != null && !batch.records.isEmpty()) {
+      // streamed from the record on every attempt, without buffering the body
+      return new MultipartFormEntity(batch.records.get(0), multipartBoundary);
+    }
+    return null;
+  }
+
+  private static HttpEntity createEntity(ByteBuffer body) {
+    if (body.hasArray()) {
+      return new ByteArrayEntity(body.array(), body.arrayOffset() + body.position(), body.remaining());
+    }
+    byte[] bytes = new byte[body.remaining()];
+    body.duplicate().get(bytes);
+    return new ByteArrayEntity(bytes);
+  }
+
+  private void onRecordCompacted() {
+    if (compactedRecordsCounter != null) {
+      compactedRecordsCounter.increment(1);
+    }
+  }
+
+  private Batch createPart(Batch batch, int fromIndex, int toIndex) {
+    // the url of a bulk batch is rendered from the keys of all its records
+    return createBatch(bulkKeyTemplate == null ? batch.url : url, batch.records.subList(fromIndex, toIndex));
+  }
+
+  private Batch createBatch(String url, List<StructuredRecord> records) {
+    if (bulkKeyTemplate != null) {
+      byte[] body = bulkKeyTemplate.renderBody(records);
+      return new Batch(bulkKeyTemplate.renderUrl(url, records), records, body == null ? null : ByteBuffer.wrap(body));
+    }
+    return new Batch(url, records, ByteBuffer.wrap(messageBuffer.getMessageBytes(records)));
+  }
+
+  private void throwAsyncFailure() {
+    RuntimeException failure = asyncFailure.get();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Records waiting for a batch of their url to be filled.
+   */
+  private static final class PendingBatch {
+    private final List<StructuredRecord> records = new ArrayList<>();
+    private final long startNanos;
+    // lane and input record number of the first record of the batch
+    private final int lane;
+    private final long firstRecord;
+    @Nullable
+    private final RecordCompactor compactor;
+
+    private PendingBatch(long startNanos, int lane, long firstRecord, List<String> compactionKeyFields) {
+      this.startNanos = startNanos;
+      this.lane = lane;
+      this.firstRecord = firstRecord;
+      this.compactor = compactionKeyFields.isEmpty() ? null : new RecordCompactor(compactionKeyFields);
+    }
+
+    /**
+     * @return true if the record replaced a record with the same key
+     */
+    private boolean add(StructuredRecord record) {
+      if (compactor != null) {
+        return compactor.add(records, record);
+      }
+      records.add(record);
+      return false;
+    }
+  }
+
+  /**
+   * Records with their request body and url, which are sent and retried together.
+   */
+  private static final class Batch {
+    // url, records and body are narrowed down to the failed items of a bulk request on retries
+    private String url;
+    private List<StructuredRecord> records;
+    @Nullable
+    private ByteBuffer body;
+    // content type of the body, if it differs from the one of the writer
+    @Nullable
+    private String contentType;
+    // response of the last attempt, only kept if the batch may be spilled to the dead letter directory
+    @Nullable
+    private String responseBody;
+    // number of records of a replayed request, whose records are not known
+    private int replayedRecords;
+    // whether the batch is a request of the dead letter directory, which is sent again
+    private boolean replayed;
+    // records of the bulk items, whose status stops the pipeline, with the status and response of the first item
+    private final List<StructuredRecord> stoppedRecords = new ArrayList<>();
+    private int stoppedStatusCode;
+    @Nullable
+    private String stoppedResponseBody;
+    // number of the batch in the task progress
+    private long sequence;
+    private int attempts;
+    private int httpStatusCode;
+    // duration of the HTTP exchange of the last attempt
+    private long latencyNanos;
+    // whether any attempt got an overload response
+    private boolean overloaded;
+    // whether the server rejected the size of the batch
+    private boolean tooLarge;
+
+    private Batch(String url, List<StructuredRecord> records, @Nullable ByteBuffer body) {
+      this.url = url;
+      this.records = records;
+      this.body = body;
+    }
   }
 
 }
@@ -32,7 +32,10 @@ import io.cdap.cdap.etl.api.batch.BatchSink;
 import io.cdap.cdap.etl.api.batch.BatchSinkContext;
 import io.cdap.plugin.common.Asset;
 import io.cdap.plugin.common.LineageRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +48,7 @@ import java.util.stream.Collectors;
 @Name("HTTP")
 @Description("Sink plugin to send the messages from the pipeline to an external http endpoint.")
 public class HTTPSink extends BatchSink<StructuredRecord, StructuredRecord, StructuredRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(HTTPSink.class);
   private HTTPSinkConfig config;
 
   public HTTPSink(HTTPSinkConfig config) {
@@ -78,10 +82,29 @@ public class HTTPSink extends BatchSink<StructuredRecord, StructuredRecord, Stru
       inputSchema.getFields().stream().map(Schema.Field::getName).collect(Collectors.toList());
     lineageRecorder.recordWrite("Write", String.format("Wrote to HTTP '%s'", config.getUrl()), fields);
 
+    if (config.shouldReplayDeadLetters()) {
+      replayDeadLetters(inputSchema);
+    }
+
     context.addOutput(Output.of(config.getReferenceNameOrNormalizedFQN(),
                                 new HTTPSink.HTTPOutputFormatProvider(config, inputSchema)));
   }
 
+  private void replayDeadLetters(Schema inputSchema) {
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, inputSchema, null);
+    try {
+      int delivered = writer.replayDeadLetters();
+      writer.close(null);
+      LOG.info("Delivered {} requests of the dead letter directory '{}'.", delivered, config.getDeadLetterPath());
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Error replaying the dead letter directory '%s'. Reason: %s",
+                                                    config.getDeadLetterPath(), e.getMessage()), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while replaying the dead letter directory.", e);
+    }
+  }
+
   /**
    * Output format provider for HTTP Sink.
    */
@@ -38,6 +38,8 @@ import io.cdap.plugin.http.common.http.MessageFormatType;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -59,26 +61,49 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   public static final String URL = "url";
   public static final String METHOD = "method";
   public static final String BATCH_SIZE = "batchSize";
+  public static final String MIN_BATCH_SIZE = "minBatchSize";
+  public static final String MAX_BATCH_SIZE = "maxBatchSize";
+  public static final String BATCH_LINGER_TIME = "batchLingerTime";
+  public static final String COMPACTION_KEY_FIELDS = "compactionKeyFields";
   public static final String WRITE_JSON_AS_ARRAY = "writeJsonAsArray";
   public static final String JSON_BATCH_KEY = "jsonBatchKey";
   public static final String DELIMETER_FOR_MESSAGE = "delimiterForMessages";
   public static final String MESSAGE_FORMAT = "messageFormat";
   public static final String BODY = "body";
+  public static final String BODY_FIELD = "bodyField";
+  public static final String BODY_CONTENT_TYPE_FIELD = "bodyContentTypeField";
+  public static final String BODY_CONTENT_TYPE = "bodyContentType";
+  public static final String BULK_KEY_FIELDS = "bulkKeyFields";
+  public static final String BULK_REQUEST_BODY = "bulkRequestBody";
   public static final String REQUEST_HEADERS = "requestHeaders";
   public static final String CHARSET = "charset";
   public static final String FOLLOW_REDIRECTS = "followRedirects";
   public static final String DISABLE_SSL_VALIDATION = "disableSSLValidation";
   public static final String PROPERTY_HTTP_ERROR_HANDLING = "httpErrorsHandling";
   public static final String PROPERTY_ERROR_HANDLING = "errorHandling";
+  public static final String PROPERTY_ISOLATE_FAILED_RECORDS = "isolateFailedRecords";
+  public static final String PROPERTY_ITEM_RESULTS_PATH = "itemResultsPath";
+  public static final String PROPERTY_ITEM_STATUS_PATH = "itemStatusPath";
+  public static final String PROPERTY_DEAD_LETTER_PATH = "deadLetterPath";
+  public static final String PROPERTY_REPLAY_DEAD_LETTERS = "replayDeadLetters";
+  public static final String PROPERTY_PROGRESS_PATH = "progressPath";
   public static final String PROPERTY_RETRY_POLICY = "retryPolicy";
   public static final String PROPERTY_LINEAR_RETRY_INTERVAL = "linearRetryInterval";
   public static final String PROPERTY_MAX_RETRY_DURATION = "maxRetryDuration";
+  public static final String PROPERTY_CIRCUIT_BREAKER_ERROR_RATE = "circuitBreakerErrorRate";
+  public static final String PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION = "circuitBreakerOpenDuration";
+  public static final String PROPERTY_RETRY_BUDGET = "retryBudget";
+  public static final String PROPERTY_MAX_CONCURRENT_REQUESTS = "maxConcurrentRequests";
+  public static final String PROPERTY_ORDERING_KEY_FIELDS = "orderingKeyFields";
   public static final String CONNECTION_TIMEOUT = "connectTimeout";
   public static final String READ_TIMEOUT = "readTimeout";
   private static final String KV_DELIMITER = ":";
   private static final String DELIMITER = "\n";
   private static final String REGEX_HASHED_VAR = "#(\\w+)";
   private static final String PLACEHOLDER = "#";
+  private static final String DEFAULT_ITEM_STATUS_PATH = "status";
+  private static final long DEFAULT_BATCH_LINGER_TIME = 1000L;
+  private static final String DEFAULT_BODY_CONTENT_TYPE = "application/octet-stream";
   private static final Set<String> METHODS = ImmutableSet.of(HttpMethod.GET, HttpMethod.POST,
                                                              HttpMethod.PUT, HttpMethod.DELETE);
 
@@ -99,6 +124,36 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   @Macro
   private final Integer batchSize;
 
+  @Name(MIN_BATCH_SIZE)
+  @Nullable
+  @Description("Lower bound of the batch size, if the batch size is adapted. Defaults to 1. (Macro Enabled)")
+  @Macro
+  private Integer minBatchSize;
+
+  @Name(MAX_BATCH_SIZE)
+  @Nullable
+  @Description("Upper bound of the batch size. If set, the batch size starts at the configured batch size and " +
+    "adapts to the size with the best throughput in records per second, within the bounds. If empty, the batch " +
+    "size is fixed. (Macro Enabled)")
+  @Macro
+  private Integer maxBatchSize;
+
+  @Name(BATCH_LINGER_TIME)
+  @Nullable
+  @Description("Maximum time in milliseconds records wait for a batch, if the URL of a PUT request contains " +
+    "placeholders. Such records are batched per URL, and a batch is sent once it is full or older than this. " +
+    "Defaults to 1000. (Macro Enabled)")
+  @Macro
+  private Long batchLingerTime;
+
+  @Name(COMPACTION_KEY_FIELDS)
+  @Nullable
+  @Description("Comma-separated list of fields, which identify an entity. If set, a batch keeps only the last " +
+    "record per key, which replaces the earlier records with the same key. Is not supported for DELETE requests. " +
+    "(Macro Enabled)")
+  @Macro
+  private String compactionKeyFields;
+
   @Name(WRITE_JSON_AS_ARRAY)
   @Nullable
   @Description("Whether to write json as array. Defaults to false. (Macro Enabled)")
@@ -133,6 +188,44 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   @Macro
   private final String body;
 
+  @Name(BODY_FIELD)
+  @Nullable
+  @Description("Bytes or string field, whose value is sent verbatim as the request body. If set, every record is " +
+    "sent in its own request and the message format is not used. Strings are sent in UTF-8. Is not supported for " +
+    "DELETE requests. (Macro enabled)")
+  @Macro
+  private String bodyField;
+
+  @Name(BODY_CONTENT_TYPE_FIELD)
+  @Nullable
+  @Description("String field with the content type of the body of the record, if the body field is set. If the " +
+    "field is null, the body content type is used. (Macro enabled)")
+  @Macro
+  private String bodyContentTypeField;
+
+  @Name(BODY_CONTENT_TYPE)
+  @Nullable
+  @Description("Content type of the body, if the body field is set. Defaults to 'application/octet-stream'. " +
+    "(Macro enabled)")
+  @Macro
+  private String bodyContentType;
+
+  @Name(BULK_KEY_FIELDS)
+  @Nullable
+  @Description("Comma-separated list of key fields for a bulk endpoint. If set, records are batched and only their " +
+    "keys are sent in one request per batch, also for DELETE requests. The {keys} placeholder is replaced by the " +
+    "comma-separated keys in the URL and by a JSON array of the keys in the bulk request body. The message format " +
+    "is not used then. (Macro enabled)")
+  @Macro
+  private String bulkKeyFields;
+
+  @Name(BULK_REQUEST_BODY)
+  @Nullable
+  @Description("JSON body of a bulk request with the {keys} placeholder, e.g. {\"ids\": {keys}}. If empty, the " +
+    "bulk request has no body, e.g. if the keys are sent as query parameters. (Macro enabled)")
+  @Macro
+  private String bulkRequestBody;
+
   @Name(REQUEST_HEADERS)
   @Nullable
   @Description("Request headers to set when performing the http request. (Macro enabled)")
@@ -168,6 +261,54 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   @Description("Error handling strategy to use when the HTTP response cannot be transformed to an output record.")
   protected String errorHandling;
 
+  @Nullable
+  @Name(PROPERTY_ISOLATE_FAILED_RECORDS)
+  @Description("Whether to bisect a batch, which failed with a client error (4xx) that is not retried, to deliver " +
+    "the valid records and isolate the failed ones. Isolated records are handled according to the non-HTTP error " +
+    "handling. Defaults to false. (Macro enabled)")
+  @Macro
+  protected Boolean isolateFailedRecords;
+
+  @Nullable
+  @Name(PROPERTY_ITEM_RESULTS_PATH)
+  @Description("Slash-separated path to the array of per-item results in the JSON response of a bulk endpoint, " +
+    "e.g. /items. The item at a position is the result of the record at the same position of the batch. Only the " +
+    "records of the items, whose status is retried, are sent again. If empty, the response body is ignored. " +
+    "(Macro enabled)")
+  @Macro
+  protected String itemResultsPath;
+
+  @Nullable
+  @Name(PROPERTY_ITEM_STATUS_PATH)
+  @Description("Slash-separated path to the HTTP status code within a per-item result, e.g. index/status. " +
+    "The status is handled according to the HTTP errors handling. Defaults to 'status'. (Macro enabled)")
+  @Macro
+  protected String itemStatusPath;
+
+  @Nullable
+  @Name(PROPERTY_DEAD_LETTER_PATH)
+  @Description("Local or HDFS directory, which the requests of batches that exhausted their retries are written to, " +
+    "along with their status code and response. The task goes on with the next batches then. If empty, such a " +
+    "batch fails the task. (Macro enabled)")
+  @Macro
+  protected String deadLetterPath;
+
+  @Nullable
+  @Name(PROPERTY_REPLAY_DEAD_LETTERS)
+  @Description("Whether to send the requests of the dead letter directory again before the run, removing the ones " +
+    "which are delivered. Defaults to false. (Macro enabled)")
+  @Macro
+  protected Boolean replayDeadLetters;
+
+  @Nullable
+  @Name(PROPERTY_PROGRESS_PATH)
+  @Description("Local or HDFS directory, which every task records the number of its delivered records in, so that " +
+    "a retried task attempt does not send them again. Records are identified by their position in the input of the " +
+    "task, so every attempt must read the same input in the same order. If empty, a retried attempt sends all the " +
+    "records of the task. (Macro enabled)")
+  @Macro
+  protected String progressPath;
+
   @Nullable
   @Name(PROPERTY_RETRY_POLICY)
   @Description("Policy used to calculate delay between retries. Default Retry Policy is Exponential.")
@@ -185,6 +326,46 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   @Macro
   protected Long maxRetryDuration;
 
+  @Nullable
+  @Name(PROPERTY_CIRCUIT_BREAKER_ERROR_RATE)
+  @Description("Fraction of failed requests to a host, from 0 to 1, which opens the circuit breaker of the host. " +
+    "While the circuit is open, no requests are sent to the host. A request fails on an I/O error or on a status " +
+    "code, which is retried. If empty, the circuit breaker is disabled. (Macro enabled)")
+  @Macro
+  protected Double circuitBreakerErrorRate;
+
+  @Nullable
+  @Name(PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION)
+  @Description("Time in seconds the circuit breaker stays open before probe requests are sent. Defaults to 30. " +
+    "(Macro enabled)")
+  @Macro
+  protected Long circuitBreakerOpenDuration;
+
+  @Nullable
+  @Name(PROPERTY_RETRY_BUDGET)
+  @Description("Maximum number of retries to a host as a fraction of the requests to the host. For example, 0.1 " +
+    "allows one retry per ten requests. If the budget is exhausted, the request fails. " +
+    "If empty, retries are not limited. (Macro enabled)")
+  @Macro
+  protected Double retryBudget;
+
+  @Nullable
+  @Name(PROPERTY_MAX_CONCURRENT_REQUESTS)
+  @Description("Maximum number of requests in flight per task. If greater than 1, batches are sent concurrently " +
+    "and the number of requests in flight adapts to the latency and to 429 and 503 responses, up to this value. " +
+    "Batches can reach the endpoint out of order then. Defaults to 1. (Macro enabled)")
+  @Macro
+  protected Integer maxConcurrentRequests;
+
+  @Nullable
+  @Name(PROPERTY_ORDERING_KEY_FIELDS)
+  @Description("Comma-separated list of fields, whose records must reach the endpoint in order. If set and max " +
+    "concurrent requests is greater than 1, records are hashed by these fields into as many lanes as max " +
+    "concurrent requests. Each lane has at most one request in flight, so records with the same key are sent in " +
+    "order, while the lanes are sent concurrently. (Macro enabled)")
+  @Macro
+  protected String orderingKeyFields;
+
   @Name(CONNECTION_TIMEOUT)
   @Description("Sets the connection timeout in milliseconds. Set to 0 for infinite. Default is 60000 (1 minute). " +
     "(Macro enabled)")
@@ -249,6 +430,31 @@ public class HTTPSinkConfig extends BaseHttpConfig {
     writeJsonAsArray = builder.writeJsonAsArray;
     oauth2Enabled = builder.oauth2Enabled;
     authType = builder.authType;
+    circuitBreakerErrorRate = builder.circuitBreakerErrorRate;
+    circuitBreakerOpenDuration = builder.circuitBreakerOpenDuration;
+    retryBudget = builder.retryBudget;
+    maxConcurrentRequests = builder.maxConcurrentRequests;
+    orderingKeyFields = builder.orderingKeyFields;
+    minBatchSize = builder.minBatchSize;
+    maxBatchSize = builder.maxBatchSize;
+    batchLingerTime = builder.batchLingerTime;
+    compactionKeyFields = builder.compactionKeyFields;
+    bodyField = builder.bodyField;
+    bodyContentTypeField = builder.bodyContentTypeField;
+    bodyContentType = builder.bodyContentType;
+    bulkKeyFields = builder.bulkKeyFields;
+    bulkRequestBody = builder.bulkRequestBody;
+    isolateFailedRecords = builder.isolateFailedRecords;
+    itemResultsPath = builder.itemResultsPath;
+    deadLetterPath = builder.deadLetterPath;
+    retryPolicy = builder.retryPolicy;
+    linearRetryInterval = builder.linearRetryInterval;
+    maxRetryDuration = builder.maxRetryDuration;
+    replayDeadLetters = builder.replayDeadLetters;
+    progressPath = builder.progressPath;
+    itemStatusPath = builder.itemStatusPath;
+    errorHandling = builder.errorHandling;
+    httpErrorsHandling = builder.httpErrorsHandling;
   }
 
   public static Builder newBuilder() {
@@ -272,6 +478,31 @@ public class HTTPSinkConfig extends BaseHttpConfig {
     builder.readTimeout = copy.getReadTimeout();
     builder.oauth2Enabled = copy.getOAuth2Enabled();
     builder.authType = copy.getAuthTypeString();
+    builder.circuitBreakerErrorRate = copy.getCircuitBreakerErrorRate();
+    builder.circuitBreakerOpenDuration = copy.circuitBreakerOpenDuration;
+    builder.retryBudget = copy.getRetryBudget();
+    builder.maxConcurrentRequests = copy.maxConcurrentRequests;
+    builder.orderingKeyFields = copy.orderingKeyFields;
+    builder.minBatchSize = copy.minBatchSize;
+    builder.maxBatchSize = copy.getMaxBatchSize();
+    builder.batchLingerTime = copy.batchLingerTime;
+    builder.compactionKeyFields = copy.compactionKeyFields;
+    builder.bodyField = copy.getBodyField();
+    builder.bodyContentTypeField = copy.getBodyContentTypeField();
+    builder.bodyContentType = copy.bodyContentType;
+    builder.bulkKeyFields = copy.bulkKeyFields;
+    builder.bulkRequestBody = copy.getBulkRequestBody();
+    builder.isolateFailedRecords = copy.isolateFailedRecords;
+    builder.itemResultsPath = copy.getItemResultsPath();
+    builder.deadLetterPath = copy.getDeadLetterPath();
+    builder.retryPolicy = copy.retryPolicy;
+    builder.linearRetryInterval = copy.getLinearRetryInterval();
+    builder.maxRetryDuration = copy.maxRetryDuration;
+    builder.replayDeadLetters = copy.replayDeadLetters;
+    builder.progressPath = copy.getProgressPath();
+    builder.itemStatusPath = copy.itemStatusPath;
+    builder.errorHandling = copy.errorHandling;
+    builder.httpErrorsHandling = copy.getHttpErrorsHandling();
     return builder;
   }
 
@@ -287,6 +518,60 @@ public class HTTPSinkConfig extends BaseHttpConfig {
     return batchSize;
   }
 
+  public int getMinBatchSize() {
+    return minBatchSize == null ? 1 : minBatchSize;
+  }
+
+  @Nullable
+  public Integer getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public long getBatchLingerTime() {
+    return batchLingerTime == null ? DEFAULT_BATCH_LINGER_TIME : batchLingerTime;
+  }
+
+  public List<String> getCompactionKeyFields() {
+    return getFieldList(compactionKeyFields);
+  }
+
+  @Nullable
+  public String getBodyField() {
+    return Strings.isNullOrEmpty(bodyField) ? null : bodyField;
+  }
+
+  @Nullable
+  public String getBodyContentTypeField() {
+    return Strings.isNullOrEmpty(bodyContentTypeField) ? null : bodyContentTypeField;
+  }
+
+  public String getBodyContentType() {
+    return Strings.isNullOrEmpty(bodyContentType) ? DEFAULT_BODY_CONTENT_TYPE : bodyContentType;
+  }
+
+  public List<String> getBulkKeyFields() {
+    return getFieldList(bulkKeyFields);
+  }
+
+  @Nullable
+  public String getBulkRequestBody() {
+    return Strings.isNullOrEmpty(bulkRequestBody) ? null : bulkRequestBody;
+  }
+
+  public List<String> getOrderingKeyFields() {
+    return getFieldList(orderingKeyFields);
+  }
+
+  private static List<String> getFieldList(@Nullable String fields) {
+    if (Strings.isNullOrEmpty(fields)) {
+      return Collections.emptyList();
+    }
+    return Arrays.stream(fields.split(","))
+      .map(String::trim)
+      .filter(field -> !field.isEmpty())
+      .collect(Collectors.toList());
+  }
+
   public boolean shouldWriteJsonAsArray() {
     return writeJsonAsArray != null && writeJsonAsArray;
   }
@@ -301,7 +586,7 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   }
 
   public MessageFormatType getMessageFormat() {
-    return MessageFormatType.valueOf(messageFormat.toUpperCase());
+    return MessageFormatType.valueOf(messageFormat.toUpperCase().replace(' ', '_'));
   }
 
   @Nullable
@@ -332,9 +617,39 @@ public class HTTPSinkConfig extends BaseHttpConfig {
   }
 
   public ErrorHandling getErrorHandling() {
+    if (errorHandling == null) {
+      return ErrorHandling.STOP;
+    }
     return getEnumValueByString(ErrorHandling.class, errorHandling, PROPERTY_ERROR_HANDLING);
   }
 
+  public boolean shouldIsolateFailedRecords() {
+    return isolateFailedRecords != null && isolateFailedRecords;
+  }
+
+  @Nullable
+  public String getItemResultsPath() {
+    return Strings.isNullOrEmpty(itemResultsPath) ? null : itemResultsPath;
+  }
+
+  public String getItemStatusPath() {
+    return Strings.isNullOrEmpty(itemStatusPath) ? DEFAULT_ITEM_STATUS_PATH : itemStatusPath;
+  }
+
+  @Nullable
+  public String getDeadLetterPath() {
+    return Strings.isNullOrEmpty(deadLetterPath) ? null : deadLetterPath;
+  }
+
+  public boolean shouldReplayDeadLetters() {
+    return replayDeadLetters != null && replayDeadLetters;
+  }
+
+  @Nullable
+  public String getProgressPath() {
+    return Strings.isNullOrEmpty(progressPath) ? null : progressPath;
+  }
+
   public RetryPolicy getRetryPolicy() {
     if (retryPolicy == null) {
       return RetryPolicy.EXPONENTIAL;
@@ -363,6 +678,24 @@ public class HTTPSinkConfig extends BaseHttpConfig {
     return maxRetryDuration;
   }
 
+  @Nullable
+  public Double getCircuitBreakerErrorRate() {
+    return circuitBreakerErrorRate;
+  }
+
+  public long getCircuitBreakerOpenDuration() {
+    return circuitBreakerOpenDuration == null ? 30L : circuitBreakerOpenDuration;
+  }
+
+  @Nullable
+  public Double getRetryBudget() {
+    return retryBudget;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests == null ? 1 : maxConcurrentRequests;
+  }
+
   @Nullable
   public Integer getConnectTimeout() {
     return connectTimeout;
@@ -458,6 +791,58 @@ public class HTTPSinkConfig extends BaseHttpConfig {
         .withConfigProperty(BATCH_SIZE);
     }
 
+    if (!containsMacro(MIN_BATCH_SIZE) && minBatchSize != null && minBatchSize < 1) {
+      collector.addFailure("Min batch size must be greater than 0.", null)
+        .withConfigProperty(MIN_BATCH_SIZE);
+    }
+
+    if (!containsMacro(MIN_BATCH_SIZE) && !containsMacro(MAX_BATCH_SIZE) && maxBatchSize != null &&
+      maxBatchSize < getMinBatchSize()) {
+      collector.addFailure("Max batch size must not be less than min batch size.", null)
+        .withConfigProperty(MAX_BATCH_SIZE);
+    }
+
+    if (!containsMacro(BATCH_LINGER_TIME) && batchLingerTime != null && batchLingerTime < 0) {
+      collector.addFailure("Batch linger time cannot be a negative number.", null)
+        .withConfigProperty(BATCH_LINGER_TIME);
+    }
+
+    if (!containsMacro(COMPACTION_KEY_FIELDS) && !containsMacro(METHOD) && !getCompactionKeyFields().isEmpty() &&
+      method.equalsIgnoreCase(HttpMethod.DELETE)) {
+      collector.addFailure("Compaction key fields are not supported for DELETE requests.", null)
+        .withConfigProperty(COMPACTION_KEY_FIELDS);
+    }
+
+    if (!containsMacro(BODY_FIELD) && !containsMacro(METHOD) && getBodyField() != null &&
+      method.equalsIgnoreCase(HttpMethod.DELETE)) {
+      collector.addFailure("Body field is not supported for DELETE requests.", null)
+        .withConfigProperty(BODY_FIELD);
+    }
+
+    if (!containsMacro(BODY_FIELD) && !containsMacro(PROPERTY_ITEM_RESULTS_PATH) && getBodyField() != null &&
+      getItemResultsPath() != null) {
+      collector.addFailure("Item results path is not supported if the body field is set.",
+                           "Every record is sent in its own request.")
+        .withConfigProperty(PROPERTY_ITEM_RESULTS_PATH);
+    }
+
+    if (!containsMacro(BULK_KEY_FIELDS) && !getBulkKeyFields().isEmpty()) {
+      validateBulkRequest(collector);
+    }
+
+    if (!containsMacro(MESSAGE_FORMAT) && !containsMacro(PROPERTY_ITEM_RESULTS_PATH) &&
+      getMessageFormat() == MessageFormatType.MULTIPART && getItemResultsPath() != null) {
+      collector.addFailure("Item results path is not supported for Multipart message format.",
+                           "Every record is sent in its own request.")
+        .withConfigProperty(PROPERTY_ITEM_RESULTS_PATH);
+    }
+
+    if (!containsMacro(PROPERTY_REPLAY_DEAD_LETTERS) && !containsMacro(PROPERTY_DEAD_LETTER_PATH) &&
+      shouldReplayDeadLetters() && getDeadLetterPath() == null) {
+      collector.addFailure("Dead letters cannot be replayed without a dead letter path.", null)
+        .withConfigProperty(PROPERTY_DEAD_LETTER_PATH);
+    }
+
     // Validate Linear Retry Interval
     if (!containsMacro(PROPERTY_RETRY_POLICY) && getRetryPolicy() == RetryPolicy.LINEAR) {
       assertIsSet(getLinearRetryInterval(), PROPERTY_LINEAR_RETRY_INTERVAL, "retry policy is linear");
@@ -478,6 +863,52 @@ public class HTTPSinkConfig extends BaseHttpConfig {
       collector.addFailure("Max Retry Duration cannot be a negative number.", null)
         .withConfigProperty(PROPERTY_MAX_RETRY_DURATION);
     }
+
+    if (!containsMacro(PROPERTY_CIRCUIT_BREAKER_ERROR_RATE) && Objects.nonNull(circuitBreakerErrorRate) &&
+      (circuitBreakerErrorRate <= 0 || circuitBreakerErrorRate > 1)) {
+      collector.addFailure("Circuit Breaker Error Rate must be greater than 0 and at most 1.", null)
+        .withConfigProperty(PROPERTY_CIRCUIT_BREAKER_ERROR_RATE);
+    }
+
+    if (!containsMacro(PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION) && Objects.nonNull(circuitBreakerOpenDuration) &&
+      circuitBreakerOpenDuration < 1) {
+      collector.addFailure("Circuit Breaker Open Duration must be at least 1 second.", null)
+        .withConfigProperty(PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION);
+    }
+
+    if (!containsMacro(PROPERTY_RETRY_BUDGET) && Objects.nonNull(retryBudget) && retryBudget < 0) {
+      collector.addFailure("Retry Budget cannot be a negative number.", null)
+        .withConfigProperty(PROPERTY_RETRY_BUDGET);
+    }
+
+    if (!containsMacro(PROPERTY_MAX_CONCURRENT_REQUESTS) && Objects.nonNull(maxConcurrentRequests) &&
+      maxConcurrentRequests < 1) {
+      collector.addFailure("Max Concurrent Requests must be greater than 0.", null)
+        .withConfigProperty(PROPERTY_MAX_CONCURRENT_REQUESTS);
+    }
+  }
+
+  private void validateBulkRequest(FailureCollector collector) {
+    if (!containsMacro(BODY_FIELD) && getBodyField() != null) {
+      collector.addFailure("Body field is not supported with bulk key fields.", null)
+        .withConfigProperty(BODY_FIELD);
+    }
+
+    if (containsMacro(URL) || containsMacro(BULK_REQUEST_BODY)) {
+      return;
+    }
+    String bulkBody = getBulkRequestBody();
+    if (!url.contains(BulkKeyTemplate.KEYS_PLACEHOLDER) &&
+      (bulkBody == null || !bulkBody.contains(BulkKeyTemplate.KEYS_PLACEHOLDER))) {
+      collector.addFailure(String.format("Neither URL nor bulk request body contain the %s placeholder.",
+                                         BulkKeyTemplate.KEYS_PLACEHOLDER), null)
+        .withConfigProperty(BULK_REQUEST_BODY);
+    }
+    if (url.contains(PLACEHOLDER)) {
+      collector.addFailure("URL placeholders of record fields are not supported with bulk key fields.",
+                           String.format("Use the %s placeholder instead.", BulkKeyTemplate.KEYS_PLACEHOLDER))
+        .withConfigProperty(URL);
+    }
   }
 
   public void validateSchema(@Nullable Schema schema, FailureCollector collector) {
@@ -490,6 +921,67 @@ public class HTTPSinkConfig extends BaseHttpConfig {
       throw collector.getOrThrowException();
     }
 
+    if (!containsMacro(COMPACTION_KEY_FIELDS)) {
+      for (String keyField : getCompactionKeyFields()) {
+        if (schema.getField(keyField) == null) {
+          collector.addFailure(String.format("Schema must contain compaction key field '%s'.", keyField), null)
+            .withConfigProperty(COMPACTION_KEY_FIELDS);
+        }
+      }
+    }
+
+    if (!containsMacro(PROPERTY_ORDERING_KEY_FIELDS)) {
+      for (String keyField : getOrderingKeyFields()) {
+        if (schema.getField(keyField) == null) {
+          collector.addFailure(String.format("Schema must contain ordering key field '%s'.", keyField), null)
+            .withConfigProperty(PROPERTY_ORDERING_KEY_FIELDS);
+        }
+      }
+    }
+
+    if (!containsMacro(BULK_KEY_FIELDS)) {
+      for (String keyField : getBulkKeyFields()) {
+        Schema.Field field = schema.getField(keyField);
+        Schema.Type type = field == null ? null : getNonNullableType(field);
+        if (type == null || !type.isSimpleType() || type == Schema.Type.BYTES) {
+          collector.addFailure(String.format("Schema must contain bulk key field '%s' of a simple type.", keyField),
+                               null).withConfigProperty(BULK_KEY_FIELDS);
+        }
+      }
+    }
+
+    String bodyField = getBodyField();
+    if (!containsMacro(BODY_FIELD) && bodyField != null) {
+      Schema.Field field = schema.getField(bodyField);
+      Schema.Type type = field == null ? null : getNonNullableType(field);
+      if (type != Schema.Type.BYTES && type != Schema.Type.STRING) {
+        collector.addFailure(String.format("Schema must contain body field '%s' of type bytes or string.", bodyField),
+                             null).withConfigProperty(BODY_FIELD);
+      }
+    }
+
+    if (!containsMacro(MESSAGE_FORMAT) && !containsMacro(BODY_FIELD) && bodyField == null &&
+      getMessageFormat() == MessageFormatType.MULTIPART) {
+      for (Schema.Field field : fields) {
+        Schema.Type type = getNonNullableType(field);
+        if (!type.isSimpleType()) {
+          collector.addFailure(String.format("Field '%s' of type %s cannot be sent as a part of a multipart body.",
+                                             field.getName(), type.name().toLowerCase()),
+                               "Only fields of simple types and bytes are supported.")
+            .withInputSchemaField(field.getName());
+        }
+      }
+    }
+
+    String bodyContentTypeField = getBodyContentTypeField();
+    if (!containsMacro(BODY_CONTENT_TYPE_FIELD) && bodyContentTypeField != null) {
+      Schema.Field field = schema.getField(bodyContentTypeField);
+      if (field == null || getNonNullableType(field) != Schema.Type.STRING) {
+        collector.addFailure(String.format("Schema must contain body content type field '%s' of type string.",
+                                           bodyContentTypeField), null).withConfigProperty(BODY_CONTENT_TYPE_FIELD);
+      }
+    }
+
     if (containsMacro(URL) || containsMacro(METHOD)) {
       return;
     }
@@ -507,6 +999,11 @@ public class HTTPSinkConfig extends BaseHttpConfig {
     }
   }
 
+  private static Schema.Type getNonNullableType(Schema.Field field) {
+    Schema schema = field.getSchema();
+    return schema.isNullable() ? schema.getNonNullable().getType() : schema.getType();
+  }
+
   private Map<String, String> convertHeadersToMap(String headersString) {
     Map<String, String> headersMap = new HashMap<>();
     if (!Strings.isNullOrEmpty(headersString)) {
@@ -543,6 +1040,31 @@ public class HTTPSinkConfig extends BaseHttpConfig {
     private Integer readTimeout;
     private String oauth2Enabled;
     private String authType;
+    private Double circuitBreakerErrorRate;
+    private Long circuitBreakerOpenDuration;
+    private Double retryBudget;
+    private Integer maxConcurrentRequests;
+    private String orderingKeyFields;
+    private Integer minBatchSize;
+    private Integer maxBatchSize;
+    private Long batchLingerTime;
+    private String compactionKeyFields;
+    private String bodyField;
+    private String bodyContentTypeField;
+    private String bodyContentType;
+    private String bulkKeyFields;
+    private String bulkRequestBody;
+    private Boolean isolateFailedRecords;
+    private String itemResultsPath;
+    private String deadLetterPath;
+    private String retryPolicy;
+    private Long linearRetryInterval;
+    private Long maxRetryDuration;
+    private Boolean replayDeadLetters;
+    private String progressPath;
+    private String itemStatusPath;
+    private String errorHandling;
+    private String httpErrorsHandling;
 
     private Builder() {
     }
@@ -622,6 +1144,131 @@ public class HTTPSinkConfig extends BaseHttpConfig {
       return this;
     }
 
+    public Builder setCircuitBreakerErrorRate(Double circuitBreakerErrorRate) {
+      this.circuitBreakerErrorRate = circuitBreakerErrorRate;
+      return this;
+    }
+
+    public Builder setCircuitBreakerOpenDuration(Long circuitBreakerOpenDuration) {
+      this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+      return this;
+    }
+
+    public Builder setRetryBudget(Double retryBudget) {
+      this.retryBudget = retryBudget;
+      return this;
+    }
+
+    public Builder setMaxConcurrentRequests(Integer maxConcurrentRequests) {
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      return this;
+    }
+
+    public Builder setOrderingKeyFields(String orderingKeyFields) {
+      this.orderingKeyFields = orderingKeyFields;
+      return this;
+    }
+
+    public Builder setMinBatchSize(Integer minBatchSize) {
+      this.minBatchSize = minBatchSize;
+      return this;
+    }
+
+    public Builder setMaxBatchSize(Integer maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    public Builder setBatchLingerTime(Long batchLingerTime) {
+      this.batchLingerTime = batchLingerTime;
+      return this;
+    }
+
+    public Builder setCompactionKeyFields(String compactionKeyFields) {
+      this.compactionKeyFields = compactionKeyFields;
+      return this;
+    }
+
+    public Builder setBodyField(String bodyField) {
+      this.bodyField = bodyField;
+      return this;
+    }
+
+    public Builder setBodyContentTypeField(String bodyContentTypeField) {
+      this.bodyContentTypeField = bodyContentTypeField;
+      return this;
+    }
+
+    public Builder setBodyContentType(String bodyContentType) {
+      this.bodyContentType = bodyContentType;
+      return this;
+    }
+
+    public Builder setBulkKeyFields(String bulkKeyFields) {
+      this.bulkKeyFields = bulkKeyFields;
+      return this;
+    }
+
+    public Builder setBulkRequestBody(String bulkRequestBody) {
+      this.bulkRequestBody = bulkRequestBody;
+      return this;
+    }
+
+    public Builder setIsolateFailedRecords(Boolean isolateFailedRecords) {
+      this.isolateFailedRecords = isolateFailedRecords;
+      return this;
+    }
+
+    public Builder setItemResultsPath(String itemResultsPath) {
+      this.itemResultsPath = itemResultsPath;
+      return this;
+    }
+
+    public Builder setDeadLetterPath(String deadLetterPath) {
+      this.deadLetterPath = deadLetterPath;
+      return this;
+    }
+
+    public Builder setReplayDeadLetters(Boolean replayDeadLetters) {
+      this.replayDeadLetters = replayDeadLetters;
+      return this;
+    }
+
+    public Builder setProgressPath(String progressPath) {
+      this.progressPath = progressPath;
+      return this;
+    }
+
+    public Builder setRetryPolicy(String retryPolicy) {
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    public Builder setLinearRetryInterval(Long linearRetryInterval) {
+      this.linearRetryInterval = linearRetryInterval;
+      return this;
+    }
+
+    public Builder setMaxRetryDuration(Long maxRetryDuration) {
+      this.maxRetryDuration = maxRetryDuration;
+      return this;
+    }
+
+    public Builder setItemStatusPath(String itemStatusPath) {
+      this.itemStatusPath = itemStatusPath;
+      return this;
+    }
+
+    public Builder setErrorHandling(String errorHandling) {
+      this.errorHandling = errorHandling;
+      return this;
+    }
+
+    public Builder setHttpErrorsHandling(String httpErrorsHandling) {
+      this.httpErrorsHandling = httpErrorsHandling;
+      return this;
+    }
+
     public HTTPSinkConfig build() {
       return new HTTPSinkConfig(this);
     }
@@ -17,20 +17,22 @@
 package io.cdap.plugin.http.sink.batch;
 
 import com.google.common.base.Strings;
+import com.google.gson.stream.JsonWriter;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
-import io.cdap.cdap.format.StructuredRecordStringConverter;
+import io.cdap.cdap.format.io.JsonEncoder;
+import io.cdap.cdap.format.io.JsonStructuredRecordDatumWriter;
 import io.cdap.plugin.http.common.http.MessageFormatType;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -39,22 +41,24 @@ import java.util.stream.Collectors;
  * The message is then returned to the HTTPRecordWriter.
  */
 public class MessageBuffer {
-  private static final String REGEX_HASHED_VAR = "#(\\w+)";
+  private static final JsonStructuredRecordDatumWriter JSON_DATUM_WRITER = new JsonStructuredRecordDatumWriter();
   private final List<StructuredRecord> buffer;
   private final String jsonBatchKey;
   private final Boolean shouldWriteJsonAsArray;
   private final String delimiterForMessages;
   private final String charset;
-  private final String customMessageBody;
+  private final MessageTemplate customMessageTemplate;
   private final Function<List<StructuredRecord>, String> messageFormatter;
+  // encodes the messages of binary formats, null for text formats
+  private final Function<List<StructuredRecord>, byte[]> binaryMessageEncoder;
   private final String contentType;
-  private final Schema wrappedMessageSchema;
+  private final RecordCompactor compactor;
 
 
   /**
    * Constructor for MessageBuffer.
    *
-   * @param messageFormat          The format of the message. Can be JSON, FORM or CUSTOM.
+   * @param messageFormat          The format of the message. Can be JSON, FORM, CUSTOM or a binary format.
    * @param jsonBatchKey           The key to be used for the JSON batch message.
    * @param shouldWriteJsonAsArray Whether the JSON message should be written as an array.
    * @param delimiterForMessages   The delimiter to be used for messages.
@@ -64,12 +68,25 @@ public class MessageBuffer {
   public MessageBuffer(
           MessageFormatType messageFormat, String jsonBatchKey, boolean shouldWriteJsonAsArray,
           String delimiterForMessages, String charset, String customMessageBody, Schema inputSchema
+  ) {
+    this(messageFormat, jsonBatchKey, shouldWriteJsonAsArray, delimiterForMessages, charset, customMessageBody,
+         inputSchema, Collections.emptyList());
+  }
+
+  /**
+   * Constructor for MessageBuffer, which keeps only the last record per key.
+   *
+   * @param compactionKeyFields    The fields of the key. If empty, all the records are kept.
+   */
+  public MessageBuffer(
+          MessageFormatType messageFormat, String jsonBatchKey, boolean shouldWriteJsonAsArray,
+          String delimiterForMessages, String charset, String customMessageBody, Schema inputSchema,
+          List<String> compactionKeyFields
   ) {
     this.jsonBatchKey = jsonBatchKey;
     this.delimiterForMessages = delimiterForMessages;
     this.charset = charset;
     this.shouldWriteJsonAsArray = shouldWriteJsonAsArray;
-    this.customMessageBody = customMessageBody;
     this.buffer = new ArrayList<>();
     switch (messageFormat) {
       case JSON:
@@ -84,23 +101,48 @@ public class MessageBuffer {
         messageFormatter = this::formatAsCustom;
         contentType = "text/plain";
         break;
+      case AVRO:
+      case AVRO_DATUMS:
+        messageFormatter = null;
+        contentType = "avro/binary";
+        break;
+      case MESSAGEPACK:
+        messageFormatter = null;
+        contentType = "application/x-msgpack";
+        break;
+      case MULTIPART:
+        // every record is a multipart body of its own, which is built by the writer
+        messageFormatter = null;
+        contentType = "multipart/form-data";
+        break;
       default:
         throw new IllegalArgumentException("Invalid message format: " + messageFormat);
     }
-    // A new StructuredRecord is created with the jsonBatchKey as the
-    // field name and the array of records as the value
-    Schema bufferRecordArraySchema = Schema.arrayOf(inputSchema);
-    wrappedMessageSchema = Schema.recordOf("wrapper",
-            Schema.Field.of(jsonBatchKey, bufferRecordArraySchema));
+    if (messageFormat == MessageFormatType.AVRO || messageFormat == MessageFormatType.AVRO_DATUMS) {
+      binaryMessageEncoder = new AvroMessageEncoder(inputSchema, messageFormat == MessageFormatType.AVRO)::encode;
+    } else if (messageFormat == MessageFormatType.MESSAGEPACK) {
+      binaryMessageEncoder = new MessagePackMessageEncoder()::encode;
+    } else {
+      binaryMessageEncoder = null;
+    }
+    customMessageTemplate = messageFormat == MessageFormatType.CUSTOM ?
+      new MessageTemplate(customMessageBody, inputSchema) : null;
+    compactor = compactionKeyFields.isEmpty() ? null : new RecordCompactor(compactionKeyFields);
   }
 
   /**
-   * Adds a record to the buffer.
+   * Adds a record to the buffer. If compaction key fields are set, the record replaces the buffered record with
+   * the same key.
    *
    * @param record The record to be added.
+   * @return true if a buffered record was replaced.
    */
-  public void add(StructuredRecord record) {
+  public boolean add(StructuredRecord record) {
+    if (compactor != null) {
+      return compactor.add(buffer, record);
+    }
     buffer.add(record);
+    return false;
   }
 
   /**
@@ -108,6 +150,9 @@ public class MessageBuffer {
    */
   public void clear() {
     buffer.clear();
+    if (compactor != null) {
+      compactor.clear();
+    }
   }
 
   /**
@@ -131,11 +176,50 @@ public class MessageBuffer {
     return contentType;
   }
 
+  /**
+   * Returns a copy of the records in the buffer.
+   */
+  public List<StructuredRecord> getRecords() {
+    return new ArrayList<>(buffer);
+  }
+
+  /**
+   * Returns whether the messages are binary, so that they have no text representation.
+   */
+  public boolean isBinary() {
+    return binaryMessageEncoder != null;
+  }
+
   /**
    * Converts the buffer to the appropriate format and returns the message.
+   *
+   * @throws IllegalStateException if the message format is binary or multipart
    */
   public String getMessage() throws IOException {
-    return messageFormatter.apply(buffer);
+    return getMessage(buffer);
+  }
+
+  /**
+   * Converts the given records to the appropriate format and returns the message, e.g. for a part of a batch.
+   *
+   * @throws IllegalStateException if the message format is binary or multipart
+   */
+  public String getMessage(List<StructuredRecord> records) {
+    if (messageFormatter == null) {
+      throw new IllegalStateException("Message format has no text representation.");
+    }
+    return messageFormatter.apply(records);
+  }
+
+  /**
+   * Converts the given records to the appropriate format and returns the bytes of the message. Text messages are
+   * encoded in UTF-8.
+   */
+  public byte[] getMessageBytes(List<StructuredRecord> records) {
+    if (binaryMessageEncoder != null) {
+      return binaryMessageEncoder.apply(records);
+    }
+    return getMessage(records).getBytes(StandardCharsets.UTF_8);
   }
 
   private String formatAsJson(List<StructuredRecord> buffer) {
@@ -147,13 +231,39 @@ public class MessageBuffer {
   }
 
   private String formatAsJsonInternal(List<StructuredRecord> buffer) throws IOException {
+    // records are encoded one after another into a single writer, without a string per record
+    StringWriter stringWriter = new StringWriter();
+    JsonWriter jsonWriter = new JsonWriter(stringWriter);
+    JsonEncoder encoder = new JsonEncoder(jsonWriter);
+    if (!shouldWriteJsonAsArray) {
+      // delimited top-level values
+      jsonWriter.setLenient(true);
+      for (int i = 0; i < buffer.size(); i++) {
+        if (i > 0) {
+          jsonWriter.flush();
+          stringWriter.write(delimiterForMessages);
+        }
+        JSON_DATUM_WRITER.encode(buffer.get(i), encoder);
+      }
+      jsonWriter.flush();
+      return stringWriter.toString();
+    }
+
     boolean useJsonBatchKey = !Strings.isNullOrEmpty(jsonBatchKey);
-    if (!shouldWriteJsonAsArray || !useJsonBatchKey) {
-      return getBufferAsJsonList();
+    if (useJsonBatchKey) {
+      jsonWriter.beginObject();
+      jsonWriter.name(jsonBatchKey);
+    }
+    jsonWriter.beginArray();
+    for (StructuredRecord record : buffer) {
+      JSON_DATUM_WRITER.encode(record, encoder);
     }
-    StructuredRecord wrappedMessageRecord = StructuredRecord.builder(wrappedMessageSchema)
-            .set(jsonBatchKey, buffer).build();
-    return StructuredRecordStringConverter.toJsonString(wrappedMessageRecord);
+    jsonWriter.endArray();
+    if (useJsonBatchKey) {
+      jsonWriter.endObject();
+    }
+    jsonWriter.flush();
+    return stringWriter.toString();
   }
 
   private String formatAsForm(List<StructuredRecord> buffer) {
@@ -163,26 +273,12 @@ public class MessageBuffer {
   }
 
   private String formatAsCustom(List<StructuredRecord> buffer) {
-    return buffer.stream()
-            .map(this::createCustomMessage)
-            .collect(Collectors.joining(delimiterForMessages));
-  }
-
-  private String getBufferAsJsonList() throws IOException {
     StringBuilder sb = new StringBuilder();
-    String delimiter = shouldWriteJsonAsArray ? "," : delimiterForMessages;
-    if (shouldWriteJsonAsArray) {
-      sb.append("[");
-    }
-    for (StructuredRecord record : buffer) {
-      sb.append(StructuredRecordStringConverter.toJsonString(record));
-      sb.append(delimiter);
-    }
-    if (!buffer.isEmpty()) {
-      sb.setLength(sb.length() - delimiter.length());
-    }
-    if (shouldWriteJsonAsArray) {
-      sb.append("]");
+    for (int i = 0; i < buffer.size(); i++) {
+      if (i > 0) {
+        sb.append(delimiterForMessages);
+      }
+      customMessageTemplate.render(buffer.get(i), sb);
     }
     return sb.toString();
   }
@@ -209,24 +305,4 @@ public class MessageBuffer {
     return formMessage;
   }
 
-  private String createCustomMessage(StructuredRecord input) {
-    String customMessage = customMessageBody;
-    Matcher matcher = Pattern.compile(REGEX_HASHED_VAR).matcher(customMessage);
-    HashMap<String, String> findReplaceMap = new HashMap();
-    while (matcher.find()) {
-      if (input.get(matcher.group(1)) != null) {
-        findReplaceMap.put(matcher.group(1), (String) input.get(matcher.group(1)));
-      } else {
-        throw new IllegalArgumentException(String.format(
-                "Field %s doesnt exist in the input schema.", matcher.group(1)));
-      }
-    }
-    Matcher replaceMatcher = Pattern.compile(REGEX_HASHED_VAR).matcher(customMessage);
-    while (replaceMatcher.find()) {
-      String val = replaceMatcher.group().replace("#", "");
-      customMessage = (customMessage.replace(replaceMatcher.group(), findReplaceMap.get(val)));
-    }
-    return customMessage;
-  }
-
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.google.common.base.Charsets;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes a batch of records as a MessagePack array of maps from field names to values.
+ */
+class MessagePackMessageEncoder {
+  private static final DatumWriter DATUM_WRITER = new DatumWriter();
+
+  byte[] encode(List<StructuredRecord> records) {
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      MessagePackEncoder encoder = new MessagePackEncoder(new DataOutputStream(output));
+      encoder.writeArrayHeader(records.size());
+      for (StructuredRecord record : records) {
+        DATUM_WRITER.encode(record, encoder);
+      }
+      return output.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Error encoding MessagePack message. Reason: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Writes records as maps, arrays and maps with their size upfront, unions as the value itself and enums by name.
+   */
+  private static final class DatumWriter extends StructuredRecordDatumWriter {
+
+    @Override
+    protected void encodeRecordBegin(Encoder encoder, Schema schema) throws IOException {
+      ((MessagePackEncoder) encoder).writeMapHeader(schema.getFields().size());
+    }
+
+    @Override
+    protected void encodeRecordField(Encoder encoder, Schema.Field field, Object value) throws IOException {
+      encoder.writeString(field.getName());
+      super.encodeRecordField(encoder, field, value);
+    }
+
+    @Override
+    protected void encodeArrayBegin(Encoder encoder, Schema elementSchema, int size) throws IOException {
+      ((MessagePackEncoder) encoder).writeArrayHeader(size);
+    }
+
+    @Override
+    protected void encodeArrayEnd(Encoder encoder, Schema elementSchema, int size) {
+      // the size is written upfront
+    }
+
+    @Override
+    protected void encodeMapBegin(Encoder encoder, Schema keySchema, Schema valueSchema, int size)
+      throws IOException {
+      ((MessagePackEncoder) encoder).writeMapHeader(size);
+    }
+
+    @Override
+    protected void encodeMapEnd(Encoder encoder, Schema keySchema, Schema valueSchema, int size) {
+      // the size is written upfront
+    }
+
+    @Override
+    protected void encodeUnion(Encoder encoder, Schema schema, int matchingIdx, Object value) throws IOException {
+      encode(encoder, schema.getUnionSchema(matchingIdx), value);
+    }
+
+    @Override
+    protected void encodeEnum(Encoder encoder, Schema enumSchema, Object value) throws IOException {
+      encoder.writeString(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+    }
+  }
+
+  /**
+   * Writes values in the most compact MessagePack format for them.
+   */
+  private static final class MessagePackEncoder implements Encoder {
+    private final DataOutputStream output;
+
+    private MessagePackEncoder(DataOutputStream output) {
+      this.output = output;
+    }
+
+    private void writeArrayHeader(int size) throws IOException {
+      writeHeader(size, 0x90, 0xdc, 0xdd);
+    }
+
+    private void writeMapHeader(int size) throws IOException {
+      writeHeader(size, 0x80, 0xde, 0xdf);
+    }
+
+    private void writeHeader(int size, int fixPrefix, int prefix16, int prefix32) throws IOException {
+      if (size < 16) {
+        output.writeByte(fixPrefix | size);
+      } else if (size < 0x10000) {
+        output.writeByte(prefix16);
+        output.writeShort(size);
+      } else {
+        output.writeByte(prefix32);
+        output.writeInt(size);
+      }
+    }
+
+    @Override
+    public Encoder writeNull() throws IOException {
+      output.writeByte(0xc0);
+      return this;
+    }
+
+    @Override
+    public Encoder writeBool(boolean b) throws IOException {
+      output.writeByte(b ? 0xc3 : 0xc2);
+      return this;
+    }
+
+    @Override
+    public Encoder writeInt(int i) throws IOException {
+      return writeLong(i);
+    }
+
+    @Override
+    public Encoder writeLong(long l) throws IOException {
+      if (l >= -32 && l < 128) {
+        // positive or negative fixint
+        output.writeByte((int) l);
+      } else if (l >= Byte.MIN_VALUE && l <= Byte.MAX_VALUE) {
+        output.writeByte(0xd0);
+        output.writeByte((int) l);
+      } else if (l >= Short.MIN_VALUE && l <= Short.MAX_VALUE) {
+        output.writeByte(0xd1);
+        output.writeShort((int) l);
+      } else if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+        output.writeByte(0xd2);
+        output.writeInt((int) l);
+      } else {
+        output.writeByte(0xd3);
+        output.writeLong(l);
+      }
+      return this;
+    }
+
+    @Override
+    public Encoder writeFloat(float f) throws IOException {
+      output.writeByte(0xca);
+      output.writeFloat(f);
+      return this;
+    }
+
+    @Override
+    public Encoder writeDouble(double d) throws IOException {
+      output.writeByte(0xcb);
+      output.writeDouble(d);
+      return this;
+    }
+
+    @Override
+    public Encoder writeString(String s) throws IOException {
+      byte[] bytes = s.getBytes(Charsets.UTF_8);
+      if (bytes.length < 32) {
+        output.writeByte(0xa0 | bytes.length);
+      } else if (bytes.length < 0x100) {
+        output.writeByte(0xd9);
+        output.writeByte(bytes.length);
+      } else if (bytes.length < 0x10000) {
+        output.writeByte(0xda);
+        output.writeShort(bytes.length);
+      } else {
+        output.writeByte(0xdb);
+        output.writeInt(bytes.length);
+      }
+      output.write(bytes);
+      return this;
+    }
+
+    @Override
+    public Encoder writeBytes(byte[] bytes) throws IOException {
+      return writeBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Encoder writeBytes(byte[] bytes, int off, int len) throws IOException {
+      if (len < 0x100) {
+        output.writeByte(0xc4);
+        output.writeByte(len);
+      } else if (len < 0x10000) {
+        output.writeByte(0xc5);
+        output.writeShort(len);
+      } else {
+        output.writeByte(0xc6);
+        output.writeInt(len);
+      }
+      output.write(bytes, off, len);
+      return this;
+    }
+
+    @Override
+    public Encoder writeBytes(ByteBuffer bytes) throws IOException {
+      ByteBuffer buffer = bytes.duplicate();
+      byte[] copy = new byte[buffer.remaining()];
+      buffer.get(copy);
+      return writeBytes(copy);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A custom message template compiled into literal segments and #field references, so that a record is rendered
+ * in a single pass without scanning the template again.
+ */
+class MessageTemplate {
+  private static final Pattern HASHED_VAR_PATTERN = Pattern.compile("#(\\w+)");
+
+  // literals[i] precedes fields[i], the last literal follows the last field
+  private final String[] literals;
+  private final String[] fields;
+
+  /**
+   * @throws IllegalArgumentException if the template references a field, which doesn't exist in the schema
+   */
+  MessageTemplate(String template, Schema schema) {
+    List<String> literalList = new ArrayList<>();
+    List<String> fieldList = new ArrayList<>();
+    Matcher matcher = HASHED_VAR_PATTERN.matcher(template);
+    int literalStart = 0;
+    while (matcher.find()) {
+      String field = matcher.group(1);
+      if (schema.getField(field) == null) {
+        throw new IllegalArgumentException(String.format("Field %s doesnt exist in the input schema.", field));
+      }
+      literalList.add(template.substring(literalStart, matcher.start()));
+      fieldList.add(field);
+      literalStart = matcher.end();
+    }
+    literalList.add(template.substring(literalStart));
+    this.literals = literalList.toArray(new String[0]);
+    this.fields = fieldList.toArray(new String[0]);
+  }
+
+  /**
+   * Appends the template with the field references replaced by the values of the record.
+   *
+   * @throws IllegalArgumentException if a referenced field has no value
+   */
+  void render(StructuredRecord record, StringBuilder builder) {
+    for (int i = 0; i < fields.length; i++) {
+      builder.append(literals[i]);
+      String value = record.get(fields[i]);
+      if (value == null) {
+        throw new IllegalArgumentException(String.format(
+          "Field %s doesnt exist in the input schema.", fields[i]));
+      }
+      builder.append(value);
+    }
+    builder.append(literals[fields.length]);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.google.common.base.Charsets;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A multipart/form-data body with a part per non-null field of a record. Bytes fields are file parts, which are
+ * written straight from the record to the connection, other fields are text parts.
+ */
+class MultipartFormEntity extends AbstractHttpEntity {
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final byte[] DASHES = {'-', '-'};
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final byte[] boundary;
+  private final List<Part> parts = new ArrayList<>();
+  private final long contentLength;
+
+  MultipartFormEntity(StructuredRecord record, String boundary) {
+    this.boundary = boundary.getBytes(Charsets.US_ASCII);
+    setContentType("multipart/form-data; boundary=" + boundary);
+
+    long length = 0;
+    for (Schema.Field field : record.getSchema().getFields()) {
+      Object value = record.get(field.getName());
+      if (value == null) {
+        continue;
+      }
+      Part part = createPart(field.getName(), value);
+      parts.add(part);
+      length += DASHES.length + this.boundary.length + CRLF.length + part.headers.length + part.data.remaining() +
+        CRLF.length;
+    }
+    contentLength = length + DASHES.length + this.boundary.length + DASHES.length + CRLF.length;
+  }
+
+  private static Part createPart(String name, Object value) {
+    StringBuilder headers = new StringBuilder("Content-Disposition: form-data; name=\"").append(name).append('"');
+    ByteBuffer data;
+    if (value instanceof ByteBuffer || value instanceof byte[]) {
+      headers.append("; filename=\"").append(name).append("\"\r\nContent-Type: application/octet-stream");
+      data = value instanceof ByteBuffer ? ((ByteBuffer) value).duplicate() : ByteBuffer.wrap((byte[]) value);
+    } else {
+      data = ByteBuffer.wrap(value.toString().getBytes(Charsets.UTF_8));
+    }
+    headers.append("\r\n\r\n");
+    return new Part(headers.toString().getBytes(Charsets.UTF_8), data);
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return contentLength;
+  }
+
+  /**
+   * Returns the whole body in memory. The body is only streamed if it is written with {@link #writeTo}.
+   */
+  @Override
+  public InputStream getContent() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeTo(out);
+    return new ByteArrayInputStream(out.toByteArray());
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    for (Part part : parts) {
+      out.write(DASHES);
+      out.write(boundary);
+      out.write(CRLF);
+      out.write(part.headers);
+      write(part.data, out);
+      out.write(CRLF);
+    }
+    out.write(DASHES);
+    out.write(boundary);
+    out.write(DASHES);
+    out.write(CRLF);
+    out.flush();
+  }
+
+  private static void write(ByteBuffer data, OutputStream out) throws IOException {
+    if (data.hasArray()) {
+      out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+      return;
+    }
+    ByteBuffer source = data.duplicate();
+    byte[] chunk = new byte[Math.min(COPY_BUFFER_SIZE, source.remaining())];
+    while (source.hasRemaining()) {
+      int length = Math.min(chunk.length, source.remaining());
+      source.get(chunk, 0, length);
+      out.write(chunk, 0, length);
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+  /**
+   * Headers and data of a part, the data is not copied from the record.
+   */
+  private static final class Part {
+    private final byte[] headers;
+    private final ByteBuffer data;
+
+    private Part(byte[] headers, ByteBuffer data) {
+      this.headers = headers;
+      this.data = data;
+    }
+  }
+}
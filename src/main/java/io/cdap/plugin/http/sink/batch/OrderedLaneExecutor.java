@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks in lanes. Tasks of a lane run one at a time in the order they were submitted, while lanes run
+ * concurrently. At most one task per lane waits behind the running one, further submissions block.
+ */
+class OrderedLaneExecutor {
+  private static final int TASKS_PER_LANE = 2;
+
+  private final ExecutorService[] lanes;
+  private final Semaphore[] permits;
+
+  OrderedLaneExecutor(int laneCount, String threadNamePrefix) {
+    lanes = new ExecutorService[laneCount];
+    permits = new Semaphore[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      String threadName = threadNamePrefix + (i + 1);
+      lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        return thread;
+      });
+      permits[i] = new Semaphore(TASKS_PER_LANE);
+    }
+  }
+
+  int getLaneCount() {
+    return lanes.length;
+  }
+
+  /**
+   * Submits the task to the lane, waiting while the lane has a task queued behind the running one.
+   */
+  void execute(int lane, Runnable task) throws InterruptedException {
+    permits[lane].acquire();
+    lanes[lane].execute(() -> {
+      try {
+        task.run();
+      } finally {
+        permits[lane].release();
+      }
+    });
+  }
+
+  /**
+   * Waits for the submitted tasks to complete and stops the lanes.
+   */
+  void shutdown() throws InterruptedException {
+    for (ExecutorService lane : lanes) {
+      lane.shutdown();
+    }
+    for (ExecutorService lane : lanes) {
+      lane.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps only the last record per key in a list of records. An index from the key to the position of its record
+ * allows to replace the earlier record in place, so that the list keeps the order in which the keys first appeared.
+ */
+class RecordCompactor {
+  private final String[] keyFields;
+  private final Map<Object, Integer> positions = new HashMap<>();
+
+  RecordCompactor(List<String> keyFields) {
+    this.keyFields = keyFields.toArray(new String[0]);
+  }
+
+  /**
+   * Adds the record to the records, or replaces the record with the same key.
+   *
+   * @return true if a record with the same key was replaced
+   */
+  boolean add(List<StructuredRecord> records, StructuredRecord record) {
+    Integer position = positions.putIfAbsent(RecordKey.of(record, keyFields), records.size());
+    if (position == null) {
+      records.add(record);
+      return false;
+    }
+    records.set(position, record);
+    return true;
+  }
+
+  /**
+   * Forgets the keys, which must be done whenever the records are cleared.
+   */
+  void clear() {
+    positions.clear();
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Extracts the key of a record from the given key fields, which can be used in hash based collections.
+ */
+final class RecordKey {
+
+  private RecordKey() {
+  }
+
+  /**
+   * @return the value of the single key field, or a list of the values of multiple key fields
+   */
+  static Object of(StructuredRecord record, String[] keyFields) {
+    if (keyFields.length == 1) {
+      return getValue(record, keyFields[0]);
+    }
+    Object[] key = new Object[keyFields.length];
+    for (int i = 0; i < keyFields.length; i++) {
+      key[i] = getValue(record, keyFields[i]);
+    }
+    return Arrays.asList(key);
+  }
+
+  private static Object getValue(StructuredRecord record, String field) {
+    Object value = record.get(field);
+    // arrays do not implement equals and hashCode by content
+    return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
+  }
+}
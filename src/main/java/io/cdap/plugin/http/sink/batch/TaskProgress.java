@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.google.common.base.Charsets;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of a task, kept in a sidecar file per task attempt, so that a retried attempt skips the records which
+ * an earlier attempt already delivered. The progress is the number of input records, all of which were delivered.
+ * It is a watermark: the input records before the first one, which is still buffered by the writer or belongs to a
+ * dispatched batch that has not completed yet. Batches may complete out of order.
+ *
+ * Records are identified by their position in the input of the task, so every attempt must read the same input in
+ * the same order.
+ */
+class TaskProgress implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskProgress.class);
+  private static final long WRITE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final FileSystem fileSystem;
+  private final Path file;
+  private final long previouslyDelivered;
+  // null once closed
+  private FSDataOutputStream out;
+
+  private long lastDispatched;
+  // number of the first input record of every dispatched batch, which has not completed yet
+  private final Map<Long, Long> pendingBatches = new HashMap<>();
+  private long dispatchedRecords;
+  private long delivered;
+  private long written;
+  private long lastWriteNanos;
+
+  /**
+   * Reads the progress of the earlier attempts of the task and creates the file of this attempt.
+   */
+  TaskProgress(String progressPath, Configuration conf, TaskAttemptID attemptId) throws IOException {
+    Path taskDirectory = new Path(getJobDirectory(progressPath, attemptId.getJobID()),
+                                  attemptId.getTaskID().toString());
+    this.fileSystem = taskDirectory.getFileSystem(conf);
+    this.file = new Path(taskDirectory, Integer.toString(attemptId.getId()));
+    this.previouslyDelivered = readProgress(fileSystem, taskDirectory);
+    this.dispatchedRecords = previouslyDelivered;
+    this.delivered = previouslyDelivered;
+    this.written = previouslyDelivered;
+    this.out = fileSystem.create(file, true);
+    if (previouslyDelivered > 0) {
+      LOG.info("Skipping the first {} records of task attempt {}, earlier attempts delivered them.",
+               previouslyDelivered, attemptId);
+    }
+  }
+
+  static Path getJobDirectory(String progressPath, JobID jobId) {
+    return new Path(progressPath, jobId.toString());
+  }
+
+  /**
+   * Deletes the progress of all the tasks of the job, once the job does not retry them anymore.
+   */
+  static void deleteJobDirectory(String progressPath, Configuration conf, JobID jobId) throws IOException {
+    Path jobDirectory = getJobDirectory(progressPath, jobId);
+    jobDirectory.getFileSystem(conf).delete(jobDirectory, true);
+  }
+
+  /**
+   * @return the highest progress in the files of the task directory. A line cut short by a failed attempt is ignored.
+   */
+  private static long readProgress(FileSystem fileSystem, Path taskDirectory) throws IOException {
+    FileStatus[] statuses;
+    try {
+      statuses = fileSystem.listStatus(taskDirectory);
+    } catch (FileNotFoundException e) {
+      return 0;
+    }
+    long progress = 0;
+    for (FileStatus status : statuses) {
+      try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(fileSystem.open(status.getPath()), Charsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          try {
+            progress = Math.max(progress, Long.parseLong(line.trim()));
+          } catch (NumberFormatException e) {
+            // written partially
+          }
+        }
+      }
+    }
+    return progress;
+  }
+
+  /**
+   * @return the number of input records delivered by earlier attempts, which are skipped by this attempt
+   */
+  long getPreviouslyDelivered() {
+    return previouslyDelivered;
+  }
+
+  /**
+   * @param firstRecord number of the first input record of the batch
+   * @return the number of the batch, which is dispatched
+   */
+  synchronized long onBatchDispatched(long firstRecord) {
+    pendingBatches.put(++lastDispatched, firstRecord);
+    return lastDispatched;
+  }
+
+  /**
+   * Marks the input records up to the given number as dispatched, none of them is buffered by the writer anymore.
+   */
+  synchronized void checkpoint(long dispatchedRecords) throws IOException {
+    if (dispatchedRecords <= this.dispatchedRecords) {
+      return;
+    }
+    this.dispatchedRecords = dispatchedRecords;
+    advance();
+  }
+
+  /**
+   * Marks the batch as completed, its records were delivered or handled as configured. Batches which complete after
+   * the progress is closed, e.g. when the task fails, are ignored.
+   */
+  synchronized void onBatchCompleted(long batch) throws IOException {
+    pendingBatches.remove(batch);
+    advance();
+  }
+
+  private void advance() throws IOException {
+    if (out == null) {
+      return;
+    }
+    long progress = dispatchedRecords;
+    for (long firstRecord : pendingBatches.values()) {
+      progress = Math.min(progress, firstRecord - 1);
+    }
+    delivered = Math.max(delivered, progress);
+    long nowNanos = System.nanoTime();
+    if (delivered > written && nowNanos - lastWriteNanos >= WRITE_INTERVAL_NANOS) {
+      write();
+      lastWriteNanos = nowNanos;
+    }
+  }
+
+  private void write() throws IOException {
+    out.write((delivered + "\n").getBytes(Charsets.UTF_8));
+    // visible to the next attempt even if this one does not get to close the file
+    out.hflush();
+    written = delivered;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (out == null) {
+      return;
+    }
+    try {
+      if (delivered > written) {
+        write();
+      }
+    } finally {
+      out.close();
+      out = null;
+    }
+  }
+}
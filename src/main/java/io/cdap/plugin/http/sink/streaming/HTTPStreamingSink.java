@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.streaming;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.StageConfigurer;
+import io.cdap.cdap.etl.api.batch.SparkExecutionPluginContext;
+import io.cdap.cdap.etl.api.batch.SparkPluginContext;
+import io.cdap.cdap.etl.api.batch.SparkSink;
+import io.cdap.plugin.common.Asset;
+import io.cdap.plugin.common.LineageRecorder;
+import io.cdap.plugin.http.sink.batch.HTTPSinkConfig;
+import org.apache.spark.api.java.JavaRDD;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Sink plugin to send the messages of a realtime pipeline to an external http endpoint. Unlike the batch sink, the
+ * writers are kept on the executors across micro-batches, and the small partitions of a micro-batch are coalesced, so
+ * that its records are sent in batches of the configured size.
+ */
+@Plugin(type = SparkSink.PLUGIN_TYPE)
+@Name(HTTPStreamingSink.NAME)
+@Description(HTTPStreamingSink.DESCRIPTION)
+public class HTTPStreamingSink extends SparkSink<StructuredRecord> {
+  static final String NAME = "HTTP";
+  static final String DESCRIPTION = "Sink plugin to send the messages of a realtime pipeline to an external http " +
+    "endpoint, coalescing the partitions of every micro-batch into batches.";
+  private final HTTPSinkConfig config;
+
+  public HTTPStreamingSink(HTTPSinkConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
+    StageConfigurer stageConfigurer = pipelineConfigurer.getStageConfigurer();
+    FailureCollector collector = stageConfigurer.getFailureCollector();
+    config.validate(collector);
+    config.validateSchema(stageConfigurer.getInputSchema(), collector);
+    collector.getOrThrowException();
+  }
+
+  @Override
+  public void prepareRun(SparkPluginContext context) {
+    FailureCollector collector = context.getFailureCollector();
+    config.validate(collector);
+    config.validateSchema(context.getInputSchema(), collector);
+    collector.getOrThrowException();
+
+    Schema inputSchema = context.getInputSchema();
+    Asset asset = Asset.builder(config.getReferenceNameOrNormalizedFQN())
+      .setFqn(config.getUrl()).build();
+    LineageRecorder lineageRecorder = new LineageRecorder(context, asset);
+    lineageRecorder.createExternalDataset(inputSchema);
+    List<String> fields = inputSchema == null ?
+      Collections.emptyList() :
+      inputSchema.getFields().stream().map(Schema.Field::getName).collect(Collectors.toList());
+    lineageRecorder.recordWrite("Write", String.format("Wrote to HTTP '%s'", config.getUrl()), fields);
+  }
+
+  @Override
+  public void run(SparkExecutionPluginContext context, JavaRDD<StructuredRecord> input) {
+    // writers are shared by the partitions of all the micro-batches of the stage on an executor
+    String poolKey = String.join(":", context.getNamespace(), context.getPipelineName(), context.getStageName());
+    HTTPSinkConfig sinkConfig = config;
+    Schema inputSchema = context.getInputSchema();
+    // a partition per executor core at most, all of them run at once and carry fuller batches
+    input.coalesce(input.context().defaultParallelism())
+      .foreachPartition(records -> HTTPWriterPool.getInstance(poolKey, sinkConfig, inputSchema).write(records));
+  }
+}
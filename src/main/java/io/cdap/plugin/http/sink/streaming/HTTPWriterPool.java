@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.streaming;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.http.sink.batch.HTTPRecordWriter;
+import io.cdap.plugin.http.sink.batch.HTTPSinkConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writers of a realtime sink stage, which are kept on an executor across micro-batches, so that their HTTP clients
+ * and pooled connections are reused. A partition borrows an idle writer, or creates one if all of them are busy, so
+ * partitions which run concurrently don't share a writer.
+ *
+ * Every partition flushes the writer before it completes, so no records are buffered across micro-batches. A failed
+ * flush fails the partition of its records, which is then retried by Spark.
+ */
+final class HTTPWriterPool {
+  private static final Logger LOG = LoggerFactory.getLogger(HTTPWriterPool.class);
+  private static final ConcurrentMap<String, HTTPWriterPool> POOLS = new ConcurrentHashMap<>();
+
+  private final HTTPSinkConfig config;
+  private final Schema inputSchema;
+  // guarded by this
+  private final Deque<HTTPRecordWriter> idleWriters = new ArrayDeque<>();
+
+  private HTTPWriterPool(HTTPSinkConfig config, Schema inputSchema) {
+    this.config = config;
+    this.inputSchema = inputSchema;
+    Runtime.getRuntime().addShutdownHook(new Thread(this::closeIdle, "http-sink-shutdown"));
+  }
+
+  /**
+   * @return the pool of the stage, which is created on the first call on the executor
+   */
+  static HTTPWriterPool getInstance(String key, HTTPSinkConfig config, Schema inputSchema) {
+    return POOLS.computeIfAbsent(key, k -> new HTTPWriterPool(config, inputSchema));
+  }
+
+  /**
+   * Writes the records of a partition with an idle writer. All the records are sent once it returns.
+   */
+  void write(Iterator<StructuredRecord> records) throws IOException {
+    HTTPRecordWriter writer = borrow();
+    try {
+      while (records.hasNext()) {
+        writer.write(records.next(), null);
+      }
+      writer.flush();
+    } catch (IOException | RuntimeException e) {
+      // the requests of the writer are in an unknown state, the writer is dropped with the partition
+      close(writer);
+      throw e;
+    }
+    giveBack(writer);
+  }
+
+  private synchronized HTTPRecordWriter borrow() {
+    HTTPRecordWriter writer = idleWriters.pollFirst();
+    return writer == null ? new HTTPRecordWriter(config, inputSchema, null) : writer;
+  }
+
+  private synchronized void giveBack(HTTPRecordWriter writer) {
+    idleWriters.addFirst(writer);
+  }
+
+  /**
+   * Closes the idle writers, when the executor shuts down.
+   */
+  private void closeIdle() {
+    List<HTTPRecordWriter> writers;
+    synchronized (this) {
+      writers = new ArrayList<>(idleWriters);
+      idleWriters.clear();
+    }
+    for (HTTPRecordWriter writer : writers) {
+      close(writer);
+    }
+  }
+
+  private static void close(HTTPRecordWriter writer) {
+    try {
+      writer.close(null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      LOG.debug("Failed to close the HTTP sink writer.", e);
+    }
+  }
+}
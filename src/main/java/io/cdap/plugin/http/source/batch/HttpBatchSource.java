@@ -35,10 +35,14 @@ import io.cdap.plugin.common.Asset;
 import io.cdap.plugin.common.LineageRecorder;
 import io.cdap.plugin.http.common.pagination.page.BasePage;
 import io.cdap.plugin.http.common.pagination.page.PageEntry;
+import io.cdap.plugin.http.source.batch.partition.Partition;
+import io.cdap.plugin.http.source.batch.partition.PartitionType;
+import io.cdap.plugin.http.source.batch.partition.PartitionerFactory;
 import org.apache.hadoop.io.NullWritable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -93,7 +97,12 @@ public class HttpBatchSource extends BatchSource<NullWritable, PageEntry, Struct
         .map(Schema.Field::getName)
         .collect(Collectors.toList()));
 
-    context.setInput(Input.of(config.getReferenceNameOrNormalizedFQN(), new HttpInputFormatProvider(config)));
+    HttpBatchSourceConfig runConfig = config;
+    if (config.getAutoTuneSplits() && config.getPartitionType() != PartitionType.NONE) {
+      List<Partition> partitions = PartitionerFactory.createInstance(config).getPartitions();
+      runConfig = new SplitCalibrator(config).calibrate(partitions);
+    }
+    context.setInput(Input.of(config.getReferenceNameOrNormalizedFQN(), new HttpInputFormatProvider(runConfig)));
   }
 
   @Override
@@ -16,12 +16,24 @@
 package io.cdap.plugin.http.source.batch;
 
 import com.google.common.base.Strings;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Macro;
+import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.api.validation.InvalidConfigPropertyException;
 import io.cdap.plugin.http.common.http.AuthType;
 import io.cdap.plugin.http.common.http.HttpClient;
 import io.cdap.plugin.http.common.http.OAuthUtil;
+import io.cdap.plugin.http.source.batch.partition.Partition;
+import io.cdap.plugin.http.source.batch.partition.PartitionType;
+import io.cdap.plugin.http.source.batch.partition.PartitionerFactory;
+import io.cdap.plugin.http.source.batch.partition.ShardPartitioner;
+import io.cdap.plugin.http.source.batch.partition.SplitAssignment;
+import io.cdap.plugin.http.source.batch.partition.TimeWindowPartitioner;
 import io.cdap.plugin.http.source.common.BaseHttpSourceConfig;
 
 import org.apache.http.HttpEntity;
@@ -39,15 +51,243 @@ import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import javax.annotation.Nullable;
 
 /**
  * Provides all the configurations required for configuring the {@link HttpBatchSource} plugin.
  */
 public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
+  public static final String PROPERTY_PARTITION_TYPE = "partitionType";
+  public static final String PROPERTY_PARTITIONS_PER_SPLIT = "partitionsPerSplit";
+  public static final String PROPERTY_WINDOW_START = "windowStart";
+  public static final String PROPERTY_WINDOW_END = "windowEnd";
+  public static final String PROPERTY_WINDOW_SIZE = "windowSize";
+  public static final String PROPERTY_WINDOW_FORMAT = "windowFormat";
+  public static final String PROPERTY_PARAMETER_FILE_PATH = "parameterFilePath";
+  public static final String PROPERTY_PARAMETER_FILE_DELIMITER = "parameterFileDelimiter";
+  public static final String PROPERTY_PARTITION_CONCURRENCY = "partitionConcurrency";
+  public static final String PROPERTY_SPLIT_ASSIGNMENT = "splitAssignment";
+  public static final String PROPERTY_AUTO_TUNE_SPLITS = "autoTuneSplits";
+  public static final String PROPERTY_MAX_CONCURRENT_TASKS = "maxConcurrentTasks";
+  public static final String PROPERTY_SHARD_COUNT = "shardCount";
+
+  private static final Gson GSON = new GsonBuilder().create();
+
+  @Nullable
+  @Name(PROPERTY_PARTITION_TYPE)
+  @Description("Strategy used to divide the read into partitions, which are read in parallel. " +
+    "Every partition is paginated independently using the configured pagination type.")
+  protected String partitionType;
+
+  @Nullable
+  @Name(PROPERTY_PARTITIONS_PER_SPLIT)
+  @Description("Number of partitions read sequentially by a single task. Default is 1.")
+  @Macro
+  protected Integer partitionsPerSplit;
+
+  @Nullable
+  @Name(PROPERTY_PARTITION_CONCURRENCY)
+  @Description("Maximum number of partitions of a split, which are requested concurrently by a single task. " +
+    "Default is 1.")
+  @Macro
+  protected Integer partitionConcurrency;
+
+  @Nullable
+  @Name(PROPERTY_SPLIT_ASSIGNMENT)
+  @Description("How partitions are assigned to splits. 'Contiguous' gives every split a contiguous run of " +
+    "partitions. 'Interleaved' deals partitions to splits round-robin, which spreads dense neighbouring " +
+    "partitions over different tasks. Default is 'Contiguous'.")
+  protected String splitAssignment;
+
+  @Nullable
+  @Name(PROPERTY_AUTO_TUNE_SPLITS)
+  @Description("If true, partitions per split are chosen before the run from the latency and rate limit headers " +
+    "of a few calibration requests, instead of using the configured value.")
+  @Macro
+  protected Boolean autoTuneSplits;
+
+  @Nullable
+  @Name(PROPERTY_MAX_CONCURRENT_TASKS)
+  @Description("Maximum number of tasks of the source, which run at the same time, e.g. executors multiplied by " +
+    "cores per executor. Is used to share max requests per second among the running tasks and to auto-tune splits. " +
+    "If empty, it is estimated from the Spark executors, if their number is fixed.")
+  @Macro
+  protected Integer maxConcurrentTasks;
+
+  @Nullable
+  @Name(PROPERTY_WINDOW_START)
+  @Description("[Partitioning: Time window] Start of the time range to read, inclusive. " +
+    "ISO-8601 instant, e.g. 2023-01-01T00:00:00Z.")
+  @Macro
+  protected String windowStart;
+
+  @Nullable
+  @Name(PROPERTY_WINDOW_END)
+  @Description("[Partitioning: Time window] End of the time range to read, exclusive. " +
+    "ISO-8601 instant, e.g. 2024-01-01T00:00:00Z.")
+  @Macro
+  protected String windowEnd;
+
+  @Nullable
+  @Name(PROPERTY_WINDOW_SIZE)
+  @Description("[Partitioning: Time window] Size of a single window as ISO-8601 duration, e.g. PT1H or P1D.")
+  @Macro
+  protected String windowSize;
+
+  @Nullable
+  @Name(PROPERTY_WINDOW_FORMAT)
+  @Description("[Partitioning: Time window] Format in which {window.start} and {window.end} placeholders are " +
+    "substituted. Either a date-time pattern (UTC), 'epochSecond' or 'epochMilli'. " +
+    "If empty, ISO-8601 instant format is used.")
+  @Macro
+  protected String windowFormat;
+
+  @Nullable
+  @Name(PROPERTY_PARAMETER_FILE_PATH)
+  @Description("[Partitioning: Parameter list] Path to a delimited file, every row of which is a partition. " +
+    "The first line is a header with column names. Every column fills a {column} placeholder in url and " +
+    "request body.")
+  @Macro
+  protected String parameterFilePath;
+
+  @Nullable
+  @Name(PROPERTY_PARAMETER_FILE_DELIMITER)
+  @Description("[Partitioning: Parameter list] Delimiter of the columns in the parameter file. Default is ','.")
+  @Macro
+  protected String parameterFileDelimiter;
+
+  @Nullable
+  @Name(PROPERTY_SHARD_COUNT)
+  @Description("[Partitioning: Shard] Number of server-side shards. Every shard is read as a separate partition, " +
+    "which fills {shard.index} (0-based) and {shard.count} placeholders in url and request body.")
+  @Macro
+  protected Integer shardCount;
+
   protected HttpBatchSourceConfig(String referenceName) {
     super(referenceName);
   }
 
+  public PartitionType getPartitionType() {
+    if (Strings.isNullOrEmpty(partitionType)) {
+      return PartitionType.NONE;
+    }
+    return getEnumValueByString(PartitionType.class, partitionType, PROPERTY_PARTITION_TYPE);
+  }
+
+  public int getPartitionsPerSplit() {
+    return partitionsPerSplit == null ? 1 : partitionsPerSplit;
+  }
+
+  public int getPartitionConcurrency() {
+    return partitionConcurrency == null ? 1 : partitionConcurrency;
+  }
+
+  public boolean getAutoTuneSplits() {
+    return autoTuneSplits != null && autoTuneSplits;
+  }
+
+  @Nullable
+  public Integer getMaxConcurrentTasks() {
+    return maxConcurrentTasks;
+  }
+
+  public SplitAssignment getSplitAssignment() {
+    if (Strings.isNullOrEmpty(splitAssignment)) {
+      return SplitAssignment.CONTIGUOUS;
+    }
+    return getEnumValueByString(SplitAssignment.class, splitAssignment, PROPERTY_SPLIT_ASSIGNMENT);
+  }
+
+  @Nullable
+  public Instant getWindowStart() {
+    return toInstant(windowStart, PROPERTY_WINDOW_START);
+  }
+
+  @Nullable
+  public Instant getWindowEnd() {
+    return toInstant(windowEnd, PROPERTY_WINDOW_END);
+  }
+
+  @Nullable
+  public Duration getWindowSize() {
+    if (Strings.isNullOrEmpty(windowSize)) {
+      return null;
+    }
+    try {
+      return Duration.parse(windowSize);
+    } catch (DateTimeParseException e) {
+      throw new InvalidConfigPropertyException(
+        String.format("Unsupported value for '%s': '%s'", PROPERTY_WINDOW_SIZE, windowSize), PROPERTY_WINDOW_SIZE);
+    }
+  }
+
+  @Nullable
+  public String getWindowFormat() {
+    return windowFormat;
+  }
+
+  @Nullable
+  public String getParameterFilePath() {
+    return parameterFilePath;
+  }
+
+  public String getParameterFileDelimiter() {
+    return Strings.isNullOrEmpty(parameterFileDelimiter) ? "," : parameterFileDelimiter;
+  }
+
+  @Nullable
+  public Integer getShardCount() {
+    return shardCount;
+  }
+
+  /**
+   * Returns a copy of this config, which has partition placeholders substituted in url and request body. Values are
+   * percent-encoded in the url only.
+   */
+  public HttpBatchSourceConfig forPartition(Partition partition) {
+    if (partition.isEmpty()) {
+      return this;
+    }
+    HttpBatchSourceConfig copy = GSON.fromJson(GSON.toJson(this), HttpBatchSourceConfig.class);
+    copy.url = partition.substituteUrl(url);
+    copy.requestBody = partition.substitute(requestBody);
+    return copy;
+  }
+
+  /**
+   * Returns a copy of this config with the given number of partitions per split and concurrent partitions per split.
+   */
+  public HttpBatchSourceConfig withSplitPlan(int partitionsPerSplit, int partitionConcurrency) {
+    HttpBatchSourceConfig copy = GSON.fromJson(GSON.toJson(this), HttpBatchSourceConfig.class);
+    copy.partitionsPerSplit = partitionsPerSplit;
+    copy.partitionConcurrency = partitionConcurrency;
+    return copy;
+  }
+
+  /**
+   * Returns a config of the first partition. Is used for the requests done before the run (e.g. schema detection),
+   * when url may still contain partition placeholders.
+   */
+  public HttpBatchSourceConfig forFirstPartition() {
+    if (getPartitionType() == PartitionType.NONE) {
+      return this;
+    }
+    return forPartition(PartitionerFactory.getFirstPartition(this));
+  }
+
+  @Nullable
+  @Override
+  protected String getUrlForValidation() {
+    // url which starts with a placeholder is entirely provided by the parameter file
+    if (getPartitionType() == PartitionType.PARAMETER_LIST && getUrl().startsWith("{")) {
+      return null;
+    }
+    return super.getUrlForValidation();
+  }
+
   @Override
   public void validate(FailureCollector failureCollector) {
     super.validate(failureCollector);
@@ -55,9 +295,126 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
       failureCollector.addFailure("Sample size must be greater than 0.", null)
         .withConfigProperty(PROPERTY_SAMPLE_SIZE);
     }
+    validatePartitioning(failureCollector);
     validateCredentials(failureCollector);
   }
 
+  private void validatePartitioning(FailureCollector failureCollector) {
+    if (!containsMacro(PROPERTY_PARTITIONS_PER_SPLIT) && getPartitionsPerSplit() < 1) {
+      failureCollector.addFailure("Partitions per split must be greater than 0.", null)
+        .withConfigProperty(PROPERTY_PARTITIONS_PER_SPLIT);
+    }
+    if (!containsMacro(PROPERTY_PARTITION_CONCURRENCY) && getPartitionConcurrency() < 1) {
+      failureCollector.addFailure("Partition concurrency must be greater than 0.", null)
+        .withConfigProperty(PROPERTY_PARTITION_CONCURRENCY);
+    }
+    if (!containsMacro(PROPERTY_MAX_CONCURRENT_TASKS) && maxConcurrentTasks != null && maxConcurrentTasks < 1) {
+      failureCollector.addFailure("Max concurrent tasks must be greater than 0.", null)
+        .withConfigProperty(PROPERTY_MAX_CONCURRENT_TASKS);
+    }
+
+    switch (getPartitionType()) {
+      case TIME_WINDOW:
+        validateTimeWindowPartitioning(failureCollector);
+        break;
+      case PARAMETER_LIST:
+        if (!containsMacro(PROPERTY_PARAMETER_FILE_PATH) && Strings.isNullOrEmpty(parameterFilePath)) {
+          failureCollector.addFailure(
+            String.format("Parameter file path must be set when partition type is '%s'.", getPartitionType()), null)
+            .withConfigProperty(PROPERTY_PARAMETER_FILE_PATH);
+        }
+        break;
+      case SHARD:
+        validateShardPartitioning(failureCollector);
+        break;
+      // no partitioning does not require any fields
+    }
+  }
+
+  private void validateTimeWindowPartitioning(FailureCollector failureCollector) {
+    String reason = String.format("partition type is '%s'", getPartitionType());
+    if (!containsMacro(PROPERTY_URL) && !containsMacro(PROPERTY_REQUEST_BODY) &&
+      !containsPlaceholder(TimeWindowPartitioner.WINDOW_START_PLACEHOLDER) &&
+      !containsPlaceholder(TimeWindowPartitioner.WINDOW_END_PLACEHOLDER)) {
+      failureCollector.addFailure(
+        String.format("Url or request body must contain '%s' or '%s' placeholder when %s.",
+                      TimeWindowPartitioner.WINDOW_START_PLACEHOLDER, TimeWindowPartitioner.WINDOW_END_PLACEHOLDER,
+                      reason), null)
+        .withConfigProperty(PROPERTY_URL);
+    }
+
+    Instant start = null;
+    Instant end = null;
+    Duration size = null;
+    try {
+      if (!containsMacro(PROPERTY_WINDOW_START)) {
+        start = getWindowStart();
+        assertIsSet(start, PROPERTY_WINDOW_START, reason);
+      }
+      if (!containsMacro(PROPERTY_WINDOW_END)) {
+        end = getWindowEnd();
+        assertIsSet(end, PROPERTY_WINDOW_END, reason);
+      }
+      if (!containsMacro(PROPERTY_WINDOW_SIZE)) {
+        size = getWindowSize();
+        assertIsSet(size, PROPERTY_WINDOW_SIZE, reason);
+      }
+    } catch (InvalidConfigPropertyException e) {
+      failureCollector.addFailure(e.getMessage(), null).withConfigProperty(e.getProperty());
+      return;
+    }
+
+    if (start != null && end != null && !end.isAfter(start)) {
+      failureCollector.addFailure("Window end must be after window start.", null)
+        .withConfigProperty(PROPERTY_WINDOW_END);
+    }
+    if (size != null && (size.isNegative() || size.isZero())) {
+      failureCollector.addFailure("Window size must be greater than 0.", null)
+        .withConfigProperty(PROPERTY_WINDOW_SIZE);
+    }
+    if (!containsMacro(PROPERTY_WINDOW_FORMAT)) {
+      try {
+        TimeWindowPartitioner.createFormatter(getWindowFormat());
+      } catch (IllegalArgumentException e) {
+        failureCollector.addFailure(String.format("Window format '%s' is not valid: %s", windowFormat,
+                                                  e.getMessage()), null)
+          .withConfigProperty(PROPERTY_WINDOW_FORMAT);
+      }
+    }
+  }
+
+  private void validateShardPartitioning(FailureCollector failureCollector) {
+    if (!containsMacro(PROPERTY_URL) && !containsMacro(PROPERTY_REQUEST_BODY) &&
+      !containsPlaceholder(ShardPartitioner.SHARD_INDEX_PLACEHOLDER)) {
+      failureCollector.addFailure(
+        String.format("Url or request body must contain '%s' placeholder when partition type is '%s'.",
+                      ShardPartitioner.SHARD_INDEX_PLACEHOLDER, getPartitionType()), null)
+        .withConfigProperty(PROPERTY_URL);
+    }
+    if (!containsMacro(PROPERTY_SHARD_COUNT) && (shardCount == null || shardCount < 1)) {
+      failureCollector.addFailure(
+        String.format("Shard count must be greater than 0 when partition type is '%s'.", getPartitionType()), null)
+        .withConfigProperty(PROPERTY_SHARD_COUNT);
+    }
+  }
+
+  private boolean containsPlaceholder(String placeholder) {
+    return (url != null && url.contains(placeholder)) || (requestBody != null && requestBody.contains(placeholder));
+  }
+
+  @Nullable
+  private static Instant toInstant(@Nullable String value, String propertyName) {
+    if (Strings.isNullOrEmpty(value)) {
+      return null;
+    }
+    try {
+      return Instant.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new InvalidConfigPropertyException(
+        String.format("Unsupported value for '%s': '%s'", propertyName, value), propertyName);
+    }
+  }
+
   public void validateCredentials(FailureCollector collector) {
     try {
       if (getAuthType() == AuthType.OAUTH2) {
@@ -102,7 +459,7 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
       if (!containsMacro(PROPERTY_URL) && !containsMacro(PROPERTY_USERNAME) && !containsMacro(PROPERTY_PASSWORD) &&
         !containsMacro(PROPERTY_PROXY_USERNAME) && !containsMacro(PROPERTY_PROXY_PASSWORD)
         && !containsMacro(PROPERTY_PROXY_URL)) {
-        HttpClient httpClient = new HttpClient(this);
+        HttpClient httpClient = new HttpClient(forFirstPartition());
         validateBasicAuthResponse(collector, httpClient);
       }
     } catch (HttpHostConnectException e) {
@@ -112,7 +469,7 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
   }
 
   public void validateBasicAuthResponse(FailureCollector collector, HttpClient httpClient) throws IOException {
-    try (CloseableHttpResponse response = httpClient.executeHTTP(getUrl())) {
+    try (CloseableHttpResponse response = httpClient.executeHTTP(forFirstPartition().getUrl())) {
       int statusCode = response.getStatusLine().getStatusCode();
       if (statusCode != HttpStatus.SC_OK) {
         HttpEntity entity = response.getEntity();
@@ -139,6 +496,12 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
     this.errorHandling = builder.errorHandling;
     this.retryPolicy = builder.retryPolicy;
     this.maxRetryDuration = builder.maxRetryDuration;
+    this.circuitBreakerErrorRate = builder.circuitBreakerErrorRate;
+    this.circuitBreakerOpenDuration = builder.circuitBreakerOpenDuration;
+    this.retryBudget = builder.retryBudget;
+    this.hedgeDelay = builder.hedgeDelay;
+    this.hedgePercentile = builder.hedgePercentile;
+    this.hedgeBudget = builder.hedgeBudget;
     this.connectTimeout = builder.connectTimeout;
     this.readTimeout = builder.readTimeout;
     this.paginationType = builder.paginationType;
@@ -154,6 +517,22 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
     this.proxyUrl = builder.proxyUrl;
     this.proxyUsername = builder.proxyUsername;
     this.proxyPassword = builder.proxyPassword;
+    this.partitionType = builder.partitionType;
+    this.partitionsPerSplit = builder.partitionsPerSplit;
+    this.windowStart = builder.windowStart;
+    this.windowEnd = builder.windowEnd;
+    this.windowSize = builder.windowSize;
+    this.windowFormat = builder.windowFormat;
+    this.partitionConcurrency = builder.partitionConcurrency;
+    this.shardCount = builder.shardCount;
+    this.splitAssignment = builder.splitAssignment;
+    this.autoTuneSplits = builder.autoTuneSplits;
+    this.maxConcurrentTasks = builder.maxConcurrentTasks;
+    this.httpErrorsHandling = builder.httpErrorsHandling;
+    this.keystoreType = builder.keystoreType;
+    this.trustStoreType = builder.trustStoreType;
+    this.parameterFilePath = builder.parameterFilePath;
+    this.parameterFileDelimiter = builder.parameterFileDelimiter;
   }
 
   public static HttpBatchSourceConfigBuilder builder() {
@@ -177,6 +556,12 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
     private String errorHandling;
     private String retryPolicy;
     private Long maxRetryDuration;
+    private Double circuitBreakerErrorRate;
+    private Long circuitBreakerOpenDuration;
+    private Double retryBudget;
+    private Long hedgeDelay;
+    private Double hedgePercentile;
+    private Double hedgeBudget;
     private Integer connectTimeout;
     private Integer readTimeout;
     private String paginationType;
@@ -193,7 +578,22 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
     private String proxyPassword;
     private String username;
     private String password;
-
+    private String partitionType;
+    private Integer partitionsPerSplit;
+    private String windowStart;
+    private String windowEnd;
+    private String windowSize;
+    private String windowFormat;
+    private Integer partitionConcurrency;
+    private Integer shardCount;
+    private String splitAssignment;
+    private Boolean autoTuneSplits;
+    private Integer maxConcurrentTasks;
+    private String httpErrorsHandling;
+    private String keystoreType;
+    private String trustStoreType;
+    private String parameterFilePath;
+    private String parameterFileDelimiter;
 
     public HttpBatchSourceConfigBuilder setReferenceName (String referenceName) {
       this.referenceName = referenceName;
@@ -309,6 +709,36 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
       return this;
     }
 
+    public HttpBatchSourceConfigBuilder setCircuitBreakerErrorRate(Double circuitBreakerErrorRate) {
+      this.circuitBreakerErrorRate = circuitBreakerErrorRate;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setCircuitBreakerOpenDuration(Long circuitBreakerOpenDuration) {
+      this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setRetryBudget(Double retryBudget) {
+      this.retryBudget = retryBudget;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setHedgeDelay(Long hedgeDelay) {
+      this.hedgeDelay = hedgeDelay;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setHedgePercentile(Double hedgePercentile) {
+      this.hedgePercentile = hedgePercentile;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setHedgeBudget(Double hedgeBudget) {
+      this.hedgeBudget = hedgeBudget;
+      return this;
+    }
+
     public HttpBatchSourceConfigBuilder setConnectTimeout(Integer connectTimeout) {
       this.connectTimeout = connectTimeout;
       return this;
@@ -334,6 +764,86 @@ public class HttpBatchSourceConfig extends BaseHttpSourceConfig {
       return this;
     }
 
+    public HttpBatchSourceConfigBuilder setPartitionType(String partitionType) {
+      this.partitionType = partitionType;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setPartitionsPerSplit(Integer partitionsPerSplit) {
+      this.partitionsPerSplit = partitionsPerSplit;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setWindowStart(String windowStart) {
+      this.windowStart = windowStart;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setWindowEnd(String windowEnd) {
+      this.windowEnd = windowEnd;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setWindowSize(String windowSize) {
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setWindowFormat(String windowFormat) {
+      this.windowFormat = windowFormat;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setPartitionConcurrency(Integer partitionConcurrency) {
+      this.partitionConcurrency = partitionConcurrency;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setShardCount(Integer shardCount) {
+      this.shardCount = shardCount;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setSplitAssignment(String splitAssignment) {
+      this.splitAssignment = splitAssignment;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setAutoTuneSplits(Boolean autoTuneSplits) {
+      this.autoTuneSplits = autoTuneSplits;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setMaxConcurrentTasks(Integer maxConcurrentTasks) {
+      this.maxConcurrentTasks = maxConcurrentTasks;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setHttpErrorsHandling(String httpErrorsHandling) {
+      this.httpErrorsHandling = httpErrorsHandling;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setKeystoreType(String keystoreType) {
+      this.keystoreType = keystoreType;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setTrustStoreType(String trustStoreType) {
+      this.trustStoreType = trustStoreType;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setParameterFilePath(String parameterFilePath) {
+      this.parameterFilePath = parameterFilePath;
+      return this;
+    }
+
+    public HttpBatchSourceConfigBuilder setParameterFileDelimiter(String parameterFileDelimiter) {
+      this.parameterFileDelimiter = parameterFileDelimiter;
+      return this;
+    }
+
     public HttpBatchSourceConfig build() {
       return new HttpBatchSourceConfig(this);
     }
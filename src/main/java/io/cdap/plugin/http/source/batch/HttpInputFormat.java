@@ -15,8 +15,15 @@
  */
 package io.cdap.plugin.http.source.batch;
 
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import io.cdap.plugin.http.common.pagination.page.BasePage;
 import io.cdap.plugin.http.common.pagination.page.PageEntry;
+import io.cdap.plugin.http.source.batch.partition.Partition;
+import io.cdap.plugin.http.source.batch.partition.PartitionerFactory;
+import io.cdap.plugin.http.source.batch.partition.SplitAssignment;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -24,17 +31,58 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * InputFormat for mapreduce job, which provides a single split of data. Since in general pagination cannot
- * parallelized.
+ * InputFormat for mapreduce job. Since in general pagination cannot be parallelized, a single split of data is
+ * provided, unless a partition type is configured. In that case partitions are grouped into splits, and every
+ * partition is paginated independently.
+ *
+ * Splits are handed out to the tasks by the engine as executors become free. Keeping splits small, so that there
+ * are several times more splits than executors, lets fast tasks pull more work instead of waiting on stragglers.
  */
 public class HttpInputFormat extends InputFormat {
+  private static final Gson gson = new GsonBuilder().create();
+
   @Override
   public List<InputSplit> getSplits(JobContext jobContext) {
-    return Collections.singletonList(new HttpSplit());
+    Configuration conf = jobContext.getConfiguration();
+    String configJson = conf.get(HttpInputFormatProvider.PROPERTY_CONFIG_JSON);
+    HttpBatchSourceConfig httpBatchSourceConfig = gson.fromJson(configJson, HttpBatchSourceConfig.class);
+
+    List<Partition> partitions = PartitionerFactory.createInstance(httpBatchSourceConfig, conf).getPartitions();
+    return createSplits(partitions, httpBatchSourceConfig.getPartitionsPerSplit(),
+                        httpBatchSourceConfig.getSplitAssignment());
+  }
+
+  static List<InputSplit> createSplits(List<Partition> partitions, int partitionsPerSplit,
+                                       SplitAssignment splitAssignment) {
+    List<List<Partition>> splitPartitions = new ArrayList<>();
+    switch (splitAssignment) {
+      case CONTIGUOUS:
+        for (List<Partition> partitionsOfSplit : Lists.partition(partitions, partitionsPerSplit)) {
+          splitPartitions.add(new ArrayList<>(partitionsOfSplit));
+        }
+        break;
+      case INTERLEAVED:
+        int splitsCount = (partitions.size() + partitionsPerSplit - 1) / partitionsPerSplit;
+        for (int i = 0; i < splitsCount; i++) {
+          splitPartitions.add(new ArrayList<>(partitionsPerSplit));
+        }
+        for (int i = 0; i < partitions.size(); i++) {
+          splitPartitions.get(i % splitsCount).add(partitions.get(i));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported split assignment: '%s'", splitAssignment));
+    }
+
+    List<InputSplit> splits = new ArrayList<>(splitPartitions.size());
+    for (List<Partition> partitionsOfSplit : splitPartitions) {
+      splits.add(new HttpSplit(partitionsOfSplit, splitPartitions.size()));
+    }
+    return splits;
   }
 
   @Override
@@ -67,9 +67,11 @@ public class HttpInputFormatProvider implements InputFormatProvider {
       case CSV:
       case TSV:
         String delimiter = format == PageFormat.CSV ? "," : "\t";
-        try (HttpClient client = new HttpClient(config)) {
+        // schema is detected from the first partition, since url may contain partition placeholders
+        HttpBatchSourceConfig sampleConfig = config.forFirstPartition();
+        try (HttpClient client = new HttpClient(sampleConfig)) {
           RawStringPerLine rawStringPerLine = new RawStringPerLine(
-            new HttpResponse(client.executeHTTP(config.getUrl())));
+            new HttpResponse(client.executeHTTP(sampleConfig.getUrl())));
           return DelimitedSchemaDetector.detectSchema(config, delimiter, rawStringPerLine, failureCollector);
         } catch (IOException e) {
           String errorMessage = e.getMessage();
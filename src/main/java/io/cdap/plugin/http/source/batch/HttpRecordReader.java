@@ -15,12 +15,15 @@
  */
 package io.cdap.plugin.http.source.batch;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import io.cdap.plugin.http.common.pagination.BaseHttpPaginationIterator;
 import io.cdap.plugin.http.common.pagination.PaginationIteratorFactory;
 import io.cdap.plugin.http.common.pagination.page.BasePage;
 import io.cdap.plugin.http.common.pagination.page.PageEntry;
+import io.cdap.plugin.http.common.ratelimit.RequestRateLimiter;
+import io.cdap.plugin.http.source.batch.partition.Partition;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -30,15 +33,33 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * RecordReader implementation, which reads text records representations and http codes
  * using {@link BaseHttpPaginationIterator} subclasses.
+ *
+ * If partition concurrency is greater than 1, the first pages of the following partitions are fetched in background
+ * while the current partition is read. Records are still returned in the partitions order.
  */
 public class HttpRecordReader extends RecordReader<NullWritable, PageEntry> {
   private static final Logger LOG = LoggerFactory.getLogger(HttpRecordReader.class);
   private static final Gson gson = new GsonBuilder().create();
 
+  private HttpBatchSourceConfig httpBatchSourceConfig;
+  private Iterator<Partition> partitionIterator;
+  private int partitionsCount;
+  private int partitionsStarted;
+  private ExecutorService executorService;
+  private RequestRateLimiter rateLimiter;
+  private final Deque<Future<BaseHttpPaginationIterator>> prefetchedPartitions = new ArrayDeque<>();
   private BaseHttpPaginationIterator httpPaginationIterator;
   private BasePage currentBasePage;
   private PageEntry value;
@@ -53,31 +74,122 @@ public class HttpRecordReader extends RecordReader<NullWritable, PageEntry> {
   public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) {
     Configuration conf = taskAttemptContext.getConfiguration();
     String configJson = conf.get(HttpInputFormatProvider.PROPERTY_CONFIG_JSON);
-    HttpBatchSourceConfig httpBatchSourceConfig = gson.fromJson(configJson, HttpBatchSourceConfig.class);
-    httpPaginationIterator = PaginationIteratorFactory.createInstance(httpBatchSourceConfig, null);
+    httpBatchSourceConfig = gson.fromJson(configJson, HttpBatchSourceConfig.class);
+    HttpSplit httpSplit = (HttpSplit) inputSplit;
+    partitionIterator = httpSplit.getPartitions().iterator();
+    partitionsCount = httpSplit.getPartitions().size();
+
+    Double maxRequestsPerSecond = httpBatchSourceConfig.getMaxRequestsPerSecond();
+    if (maxRequestsPerSecond != null) {
+      // every running task gets an equal share of the rate, any of the splits may run if the task slots are unknown
+      Integer concurrentTasks = TaskConcurrency.get(httpBatchSourceConfig);
+      int runningTasks = concurrentTasks == null ? httpSplit.getSplitsCount() :
+        Math.min(concurrentTasks, httpSplit.getSplitsCount());
+      rateLimiter = new RequestRateLimiter(maxRequestsPerSecond / runningTasks);
+    }
+
+    int concurrency = Math.min(httpBatchSourceConfig.getPartitionConcurrency(), partitionsCount);
+    if (concurrency > 1) {
+      executorService = Executors.newFixedThreadPool(
+        concurrency, new ThreadFactoryBuilder().setNameFormat("http-partition-reader-%d").setDaemon(true).build());
+      while (prefetchedPartitions.size() < concurrency && prefetchNextPartition()) {
+        // fill the queue up to concurrency
+      }
+    }
   }
 
   @Override
-  public boolean nextKeyValue() {
+  public boolean nextKeyValue() throws IOException {
     // If there is no current page or no next line in the current page
-    if (currentBasePage == null || !currentBasePage.hasNext()) {
-      if (!httpPaginationIterator.hasNext()) {
-        // If there is no next page, return false
+    while (currentBasePage == null || !currentBasePage.hasNext()) {
+      if (httpPaginationIterator != null && httpPaginationIterator.hasNext()) {
+        // Get the next page
+        currentBasePage = httpPaginationIterator.next();
+        // Check if the new page has any lines
+        if (currentBasePage.hasNext()) {
+          break;
+        }
+        // If the new page has no lines, pagination of the partition is finished.
+      }
+      if (!startNextPartition()) {
+        // If there is no next partition, return false
         // All pages are read
         return false;
       }
-      // Get the next page
-      currentBasePage = httpPaginationIterator.next();
-      // Check if the new page has any lines
-      if (!currentBasePage.hasNext()) {
-        // If the new page has no lines, we stop.
+    }
+    value = currentBasePage.next();
+    return true;
+  }
+
+  private boolean startNextPartition() throws IOException {
+    if (httpPaginationIterator != null) {
+      httpPaginationIterator.close();
+      httpPaginationIterator = null;
+    }
+    currentBasePage = null;
+    if (executorService != null) {
+      Future<BaseHttpPaginationIterator> future = prefetchedPartitions.poll();
+      if (future == null) {
+        return false;
+      }
+      prefetchNextPartition();
+      httpPaginationIterator = getPrefetched(future);
+    } else {
+      if (!partitionIterator.hasNext()) {
         return false;
       }
+      httpPaginationIterator = createIterator(partitionIterator.next());
     }
-    value = currentBasePage.next();
+    partitionsStarted++;
     return true;
   }
 
+  private BaseHttpPaginationIterator createIterator(Partition partition) {
+    LOG.debug("Reading partition {}", partition);
+    BaseHttpPaginationIterator iterator = PaginationIteratorFactory.createInstance(
+      httpBatchSourceConfig.forPartition(partition), null);
+    if (rateLimiter != null) {
+      // iterators of all the partitions of the task share the same limiter
+      iterator.setRateLimiter(rateLimiter);
+    }
+    return iterator;
+  }
+
+  private boolean prefetchNextPartition() {
+    if (!partitionIterator.hasNext()) {
+      return false;
+    }
+
+    Partition partition = partitionIterator.next();
+    prefetchedPartitions.add(executorService.submit(() -> {
+      BaseHttpPaginationIterator iterator = createIterator(partition);
+      try {
+        // loads the first page
+        iterator.hasNext();
+        return iterator;
+      } catch (RuntimeException e) {
+        iterator.close();
+        throw e;
+      }
+    }));
+    return true;
+  }
+
+  private static BaseHttpPaginationIterator getPrefetched(Future<BaseHttpPaginationIterator> future)
+    throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the partition to be fetched");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException("Failed to fetch the partition", e.getCause());
+    }
+  }
+
   @Override
   public NullWritable getCurrentKey() {
     return null;
@@ -90,14 +202,32 @@ public class HttpRecordReader extends RecordReader<NullWritable, PageEntry> {
 
   @Override
   public float getProgress() {
-    // progress is unknown
-    return 0.0f;
+    // progress within a partition is unknown
+    return partitionsCount == 0 ? 0.0f : (float) Math.max(0, partitionsStarted - 1) / partitionsCount;
   }
 
   @Override
   public void close() throws IOException {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      for (Future<BaseHttpPaginationIterator> future : prefetchedPartitions) {
+        if (future.isDone() && !future.isCancelled()) {
+          try {
+            future.get().close();
+          } catch (InterruptedException | ExecutionException e) {
+            // the partition failed, nothing to close
+          }
+        } else {
+          future.cancel(true);
+        }
+      }
+      prefetchedPartitions.clear();
+    }
     if (httpPaginationIterator != null) {
       httpPaginationIterator.close();
     }
+    if (rateLimiter != null) {
+      rateLimiter.close();
+    }
   }
 }
@@ -16,30 +16,69 @@
 
 package io.cdap.plugin.http.source.batch;
 
+import io.cdap.plugin.http.source.batch.partition.Partition;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.mapreduce.InputSplit;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * A no-op split.
+ * A split which carries the partitions read sequentially by a single task.
  */
 public class HttpSplit extends InputSplit implements Writable {
+  private List<Partition> partitions;
+  private int splitsCount;
+
   public HttpSplit() {
+    this(Collections.singletonList(new Partition()), 1);
+  }
+
+  /**
+   * @param splitsCount total number of splits of the read
+   */
+  public HttpSplit(List<Partition> partitions, int splitsCount) {
+    this.partitions = partitions;
+    this.splitsCount = splitsCount;
+  }
+
+  public List<Partition> getPartitions() {
+    return partitions;
+  }
+
+  public int getSplitsCount() {
+    return splitsCount;
   }
 
   @Override
-  public void readFields(DataInput dataInput) {
+  public void readFields(DataInput dataInput) throws IOException {
+    int size = WritableUtils.readVInt(dataInput);
+    partitions = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Partition partition = new Partition();
+      partition.readFields(dataInput);
+      partitions.add(partition);
+    }
+    splitsCount = WritableUtils.readVInt(dataInput);
   }
 
   @Override
-  public void write(DataOutput dataOutput) {
+  public void write(DataOutput dataOutput) throws IOException {
+    WritableUtils.writeVInt(dataOutput, partitions.size());
+    for (Partition partition : partitions) {
+      partition.write(dataOutput);
+    }
+    WritableUtils.writeVInt(dataOutput, splitsCount);
   }
 
   @Override
   public long getLength() {
-    return 0;
+    return partitions.size();
   }
 
   @Override
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch;
+
+import io.cdap.plugin.http.common.http.HttpClient;
+import io.cdap.plugin.http.common.http.HttpResponse;
+import io.cdap.plugin.http.source.batch.partition.Partition;
+import org.apache.http.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Chooses the number of splits and the partition concurrency of a split before the run. A few timed requests are
+ * done to the first partitions, to measure latency and read rate limit headers. The number of requests in flight
+ * needed to use the allowed request rate is estimated as rate * latency (Little's law). If the number of concurrently
+ * running tasks is known, those requests are spread over the running tasks, each requesting several partitions
+ * concurrently. Otherwise every split is assumed to run at the same time, and partitions are grouped into as many
+ * splits as needed to keep that many requests in flight.
+ */
+public class SplitCalibrator {
+  private static final Logger LOG = LoggerFactory.getLogger(SplitCalibrator.class);
+
+  static final int CALIBRATION_REQUESTS = 3;
+  // used when the server does not advertise a rate limit
+  static final int MAX_IN_FLIGHT_WITHOUT_RATE_LIMIT = 32;
+  // splits per running task, so that fast tasks pick up the remaining splits of uneven partitions
+  static final int SPLITS_PER_TASK = 4;
+  // epoch seconds are used in reset headers by some servers, instead of seconds till reset
+  private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private final HttpBatchSourceConfig config;
+  @Nullable
+  private final Integer concurrentTasks;
+
+  public SplitCalibrator(HttpBatchSourceConfig config) {
+    this(config, TaskConcurrency.get(config));
+  }
+
+  /**
+   * @param concurrentTasks number of tasks running at the same time, null if it is not known
+   */
+  SplitCalibrator(HttpBatchSourceConfig config, @Nullable Integer concurrentTasks) {
+    this.config = config;
+    this.concurrentTasks = concurrentTasks;
+  }
+
+  /**
+   * Returns a copy of the config with partitions per split and partition concurrency chosen from the measurements.
+   * If calibration fails, the config is returned as is.
+   */
+  public HttpBatchSourceConfig calibrate(List<Partition> partitions) {
+    List<Long> latencies = new ArrayList<>();
+    Double requestsPerSecond = null;
+    boolean throttled = false;
+
+    for (Partition partition : partitions.subList(0, Math.min(CALIBRATION_REQUESTS, partitions.size()))) {
+      HttpBatchSourceConfig partitionConfig = config.forPartition(partition);
+      long startTime = System.nanoTime();
+      try (HttpClient client = new HttpClient(partitionConfig);
+           HttpResponse response = new HttpResponse(client.executeHTTP(partitionConfig.getUrl()))) {
+        // latency includes reading the body, which is part of the work done per request
+        response.getBytes();
+        latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        throttled |= response.getStatusCode() == HTTP_TOO_MANY_REQUESTS;
+
+        Double responseRate = getRequestsPerSecond(response);
+        if (responseRate != null) {
+          requestsPerSecond = requestsPerSecond == null ? responseRate : Math.min(requestsPerSecond, responseRate);
+        }
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Calibration request to '{}' failed, keeping configured partitions per split.",
+                 partitionConfig.getUrl(), e);
+        return config;
+      }
+    }
+
+    Double maxRequestsPerSecond = config.getMaxRequestsPerSecond();
+    if (maxRequestsPerSecond != null) {
+      requestsPerSecond = requestsPerSecond == null ? maxRequestsPerSecond :
+        Math.min(requestsPerSecond, maxRequestsPerSecond);
+    }
+
+    Collections.sort(latencies);
+    long medianLatency = latencies.get(latencies.size() / 2);
+    int inFlight = getRequestsInFlight(requestsPerSecond, medianLatency, throttled);
+    int[] plan = getSplitPlan(partitions.size(), inFlight, concurrentTasks, config.getPartitionConcurrency());
+
+    LOG.info("Calibrated split plan: median latency {} ms, rate limit {} requests per second{}, {} concurrent " +
+               "tasks. Keeping {} requests in flight: {} partitions, {} partitions per split, {} concurrent " +
+               "partitions per split.", medianLatency,
+             requestsPerSecond == null ? "none" : String.format("%.2f", requestsPerSecond),
+             throttled ? ", throttled" : "", concurrentTasks == null ? "unknown" : concurrentTasks, inFlight,
+             partitions.size(), plan[0], plan[1]);
+    return config.withSplitPlan(plan[0], plan[1]);
+  }
+
+  /**
+   * @param concurrentTasks number of tasks running at the same time, null if unknown
+   * @param partitionConcurrency configured partition concurrency, which is kept if the running tasks are unknown
+   * @return partitions per split and partition concurrency, which keep the given number of requests in flight
+   */
+  static int[] getSplitPlan(int partitions, int inFlight, @Nullable Integer concurrentTasks,
+                            int partitionConcurrency) {
+    if (concurrentTasks == null) {
+      // every split is assumed to run at the same time
+      int splits = Math.max(1, Math.min(partitions, inFlight / partitionConcurrency));
+      return new int[]{(partitions + splits - 1) / splits, partitionConcurrency};
+    }
+    if (inFlight <= concurrentTasks) {
+      // fewer requests in flight than task slots, one partition at a time per split
+      int splits = Math.max(1, Math.min(partitions, inFlight));
+      return new int[]{(partitions + splits - 1) / splits, 1};
+    }
+    int concurrency = (inFlight + concurrentTasks - 1) / concurrentTasks;
+    // a split for every running task at least, and enough partitions per split for the concurrency
+    int splits = Math.max(Math.min(concurrentTasks, partitions),
+                          Math.min(concurrentTasks * SPLITS_PER_TASK, partitions / concurrency));
+    int partitionsPerSplit = (partitions + splits - 1) / splits;
+    return new int[]{partitionsPerSplit, Math.min(partitionsPerSplit, concurrency)};
+  }
+
+  static int getRequestsInFlight(@Nullable Double requestsPerSecond, long latencyMillis, boolean throttled) {
+    int inFlight;
+    if (requestsPerSecond == null) {
+      inFlight = MAX_IN_FLIGHT_WITHOUT_RATE_LIMIT;
+    } else {
+      inFlight = (int) Math.min(MAX_IN_FLIGHT_WITHOUT_RATE_LIMIT,
+                                Math.floor(requestsPerSecond * latencyMillis / 1000.0));
+    }
+    // back off if the limit was already hit during calibration
+    if (throttled) {
+      inFlight /= 2;
+    }
+    return Math.max(1, inFlight);
+  }
+
+  /**
+   * Reads the rate allowed by the server from RateLimit-* or X-RateLimit-* headers. The rate is remaining
+   * (or limit) requests divided by seconds till reset of the window.
+   *
+   * @return requests per second or null if the headers are missing
+   */
+  @Nullable
+  static Double getRequestsPerSecond(HttpResponse response) {
+    Long limit = getHeaderNumber(response, "RateLimit-Limit", "X-RateLimit-Limit");
+    Long remaining = getHeaderNumber(response, "RateLimit-Remaining", "X-RateLimit-Remaining");
+    Long reset = getHeaderNumber(response, "RateLimit-Reset", "X-RateLimit-Reset");
+    Long requests = remaining != null ? remaining : limit;
+    if (requests == null || reset == null) {
+      return null;
+    }
+
+    long secondsTillReset = reset;
+    if (reset > EPOCH_SECONDS_THRESHOLD) {
+      secondsTillReset = reset - TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+    return (double) requests / Math.max(1, secondsTillReset);
+  }
+
+  @Nullable
+  private static Long getHeaderNumber(HttpResponse response, String... headerNames) {
+    for (String headerName : headerNames) {
+      Header header = response.getFirstHeader(headerName);
+      if (header == null) {
+        continue;
+      }
+      // e.g. "100" or "100, 100;w=60"
+      String value = header.getValue().split("[,;]")[0].trim();
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        LOG.debug("Ignoring header '{}' with non-numeric value '{}'", headerName, header.getValue());
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.SparkEnv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+/**
+ * Number of tasks of the source, which run at the same time. It is either configured, or estimated from the
+ * executors and cores of the Spark application.
+ */
+final class TaskConcurrency {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskConcurrency.class);
+
+  private TaskConcurrency() {
+  }
+
+  /**
+   * @return the maximum number of concurrently running tasks, or null if it is neither configured nor known
+   */
+  @Nullable
+  static Integer get(HttpBatchSourceConfig config) {
+    Integer maxConcurrentTasks = config.getMaxConcurrentTasks();
+    return maxConcurrentTasks != null ? maxConcurrentTasks : estimateFromSpark();
+  }
+
+  /**
+   * Estimates the task slots as executors multiplied by the tasks per executor. With dynamic allocation the maximum
+   * number of executors is used, so that shares computed from the estimate never add up to more than the total.
+   *
+   * @return the estimate, or null if the pipeline does not run on Spark or the number of executors is not fixed
+   */
+  @Nullable
+  static Integer estimateFromSpark() {
+    try {
+      SparkEnv env = SparkEnv.get();
+      if (env == null) {
+        return null;
+      }
+      SparkConf conf = env.conf();
+      int executors = conf.getBoolean("spark.dynamicAllocation.enabled", false) ?
+        conf.getInt("spark.dynamicAllocation.maxExecutors", 0) : conf.getInt("spark.executor.instances", 0);
+      if (executors <= 0) {
+        return null;
+      }
+      int tasksPerExecutor = conf.getInt("spark.executor.cores", 1) / Math.max(1, conf.getInt("spark.task.cpus", 1));
+      return executors * Math.max(1, tasksPerExecutor);
+    } catch (LinkageError | RuntimeException e) {
+      // e.g. the MapReduce engine, without Spark classes
+      LOG.debug("Unable to estimate concurrent tasks from the Spark configuration.", e);
+      return null;
+    }
+  }
+}
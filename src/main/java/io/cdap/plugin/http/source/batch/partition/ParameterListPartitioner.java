@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a delimited parameter file and creates a partition for every row of it. The first line of the file is a
+ * header, which contains names of the columns. Every column fills a {column} placeholder of url and request body.
+ * A list of urls is a file with a single column, e.g. 'url' with url set to '{url}'.
+ */
+public class ParameterListPartitioner implements Partitioner {
+  private final Path path;
+  private final String delimiter;
+  private final Configuration conf;
+  private final int limit;
+
+  public ParameterListPartitioner(HttpBatchSourceConfig config, Configuration conf) {
+    this(config, conf, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param limit maximum number of rows to read. Is used when only the first partition is needed.
+   */
+  public ParameterListPartitioner(HttpBatchSourceConfig config, Configuration conf, int limit) {
+    this.path = new Path(config.getParameterFilePath());
+    this.delimiter = config.getParameterFileDelimiter();
+    this.conf = conf;
+    this.limit = limit;
+  }
+
+  @Override
+  public List<Partition> getPartitions() {
+    try {
+      FileSystem fs = path.getFileSystem(conf);
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(path),
+                                                                            StandardCharsets.UTF_8))) {
+        return readPartitions(reader);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Failed to read parameter file '%s'", path), e);
+    }
+  }
+
+  private List<Partition> readPartitions(BufferedReader reader) throws IOException {
+    Pattern delimiterPattern = Pattern.compile(Pattern.quote(delimiter));
+    String header = reader.readLine();
+    if (header == null) {
+      throw new IllegalStateException(String.format("Parameter file '%s' is empty", path));
+    }
+    String[] columns = delimiterPattern.split(header.trim(), -1);
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = columns[i].trim();
+    }
+
+    List<Partition> partitions = new ArrayList<>();
+    String line;
+    int lineNumber = 1;
+    while (partitions.size() < limit && (line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+
+      String[] values = delimiterPattern.split(line, -1);
+      if (values.length != columns.length) {
+        throw new IllegalStateException(String.format(
+          "Line %d of parameter file '%s' has %d values, while header has %d columns", lineNumber, path,
+          values.length, columns.length));
+      }
+
+      Map<String, String> placeholders = new LinkedHashMap<>();
+      for (int i = 0; i < columns.length; i++) {
+        placeholders.put(columns[i], values[i].trim());
+      }
+      partitions.add(new Partition(placeholders));
+    }
+
+    if (partitions.isEmpty()) {
+      throw new IllegalStateException(String.format("Parameter file '%s' does not contain any rows", path));
+    }
+    return partitions;
+  }
+}
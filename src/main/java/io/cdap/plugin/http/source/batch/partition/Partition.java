@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A unit of work of the batch source. Carries values of the placeholders (e.g. {window.start}), which are substituted
+ * into url and request body. Values substituted into the url are percent-encoded. Every partition runs its own
+ * independent pagination chain.
+ */
+public class Partition implements Writable {
+  private Map<String, String> placeholders;
+
+  public Partition() {
+    this(Collections.emptyMap());
+  }
+
+  public Partition(Map<String, String> placeholders) {
+    this.placeholders = new LinkedHashMap<>(placeholders);
+  }
+
+  public Map<String, String> getPlaceholders() {
+    return Collections.unmodifiableMap(placeholders);
+  }
+
+  public boolean isEmpty() {
+    return placeholders.isEmpty();
+  }
+
+  /**
+   * Replaces every {name} placeholder of this partition in the given template.
+   *
+   * @param template a string which may contain placeholders
+   * @return the template with placeholders substituted, or null if the template is null
+   */
+  @Nullable
+  public String substitute(@Nullable String template) {
+    return substitute(template, Function.identity());
+  }
+
+  /**
+   * Replaces every {name} placeholder of this partition in the given url, with the value percent-encoded, so that
+   * values with spaces, '+', '&' or '#' stay within their part of the url, be it the path or the query. A placeholder
+   * at the start of the url holds the base url, e.g. of a list of urls, and is substituted as is.
+   *
+   * @param url a url which may contain placeholders
+   * @return the url with placeholders substituted, or null if the url is null
+   */
+  @Nullable
+  public String substituteUrl(@Nullable String url) {
+    if (url == null || placeholders.isEmpty()) {
+      return url;
+    }
+    for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+      String placeholder = "{" + entry.getKey() + "}";
+      if (url.startsWith(placeholder)) {
+        return entry.getValue() + substitute(url.substring(placeholder.length()), Partition::encode);
+      }
+    }
+    return substitute(url, Partition::encode);
+  }
+
+  @Nullable
+  private String substitute(@Nullable String template, Function<String, String> encoder) {
+    if (template == null || placeholders.isEmpty()) {
+      return template;
+    }
+
+    String result = template;
+    for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+      result = result.replace("{" + entry.getKey() + "}", encoder.apply(entry.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * @return the value percent-encoded, with a space as '%20' rather than the '+' of form encoding, which is a
+   * literal '+' in a path and for many servers in a query too
+   */
+  private static String encode(String value) {
+    try {
+      return URLEncoder.encode(value, StandardCharsets.UTF_8.name()).replace("+", "%20");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("Error encoding URL with placeholder value. Reason: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void write(DataOutput dataOutput) throws IOException {
+    WritableUtils.writeVInt(dataOutput, placeholders.size());
+    for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+      WritableUtils.writeString(dataOutput, entry.getKey());
+      WritableUtils.writeString(dataOutput, entry.getValue());
+    }
+  }
+
+  @Override
+  public void readFields(DataInput dataInput) throws IOException {
+    int size = WritableUtils.readVInt(dataInput);
+    placeholders = new LinkedHashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      placeholders.put(WritableUtils.readString(dataInput), WritableUtils.readString(dataInput));
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    Partition that = (Partition) o;
+    return placeholders.equals(that.placeholders);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(placeholders);
+  }
+
+  @Override
+  public String toString() {
+    return placeholders.toString();
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.Collections;
+
+/**
+ * A factory which creates instance of {@link Partitioner} in accordance to partition type configured in
+ * the input config.
+ */
+public class PartitionerFactory {
+  public static Partitioner createInstance(HttpBatchSourceConfig config) {
+    return createInstance(config, new Configuration());
+  }
+
+  /**
+   * @param conf hadoop configuration used to access the files referenced by the config
+   */
+  public static Partitioner createInstance(HttpBatchSourceConfig config, Configuration conf) {
+    switch (config.getPartitionType()) {
+      case NONE:
+        return () -> Collections.singletonList(new Partition());
+      case TIME_WINDOW:
+        return new TimeWindowPartitioner(config);
+      case PARAMETER_LIST:
+        return new ParameterListPartitioner(config, conf);
+      case SHARD:
+        return new ShardPartitioner(config);
+      default:
+        throw new IllegalArgumentException(
+          String.format("Unsupported partition type: '%s'", config.getPartitionType()));
+    }
+  }
+
+  /**
+   * Returns the first partition only, without reading the whole parameter file.
+   */
+  public static Partition getFirstPartition(HttpBatchSourceConfig config) {
+    if (config.getPartitionType() == PartitionType.PARAMETER_LIST) {
+      return new ParameterListPartitioner(config, new Configuration(), 1).getPartitions().get(0);
+    }
+    return createInstance(config).getPartitions().get(0);
+  }
+}
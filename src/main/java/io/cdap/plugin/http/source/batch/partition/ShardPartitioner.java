@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates a partition for every server-side shard. Every partition fills {shard.index} (0-based) and {shard.count}
+ * placeholders, and runs its own pagination chain over the shard.
+ */
+public class ShardPartitioner implements Partitioner {
+  public static final String SHARD_INDEX_PLACEHOLDER_NAME = "shard.index";
+  public static final String SHARD_COUNT_PLACEHOLDER_NAME = "shard.count";
+  public static final String SHARD_INDEX_PLACEHOLDER = "{" + SHARD_INDEX_PLACEHOLDER_NAME + "}";
+  public static final String SHARD_COUNT_PLACEHOLDER = "{" + SHARD_COUNT_PLACEHOLDER_NAME + "}";
+
+  private final int shardCount;
+
+  public ShardPartitioner(HttpBatchSourceConfig config) {
+    this.shardCount = config.getShardCount();
+  }
+
+  @Override
+  public List<Partition> getPartitions() {
+    List<Partition> partitions = new ArrayList<>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      partitions.add(new Partition(ImmutableMap.of(SHARD_INDEX_PLACEHOLDER_NAME, Integer.toString(i),
+                                                   SHARD_COUNT_PLACEHOLDER_NAME, Integer.toString(shardCount))));
+    }
+    return partitions;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import io.cdap.plugin.http.common.EnumWithValue;
+
+/**
+ * An enum which represents how partitions are assigned to splits.
+ */
+public enum SplitAssignment implements EnumWithValue {
+
+  /**
+   * Every split gets a contiguous run of partitions.
+   */
+  CONTIGUOUS("Contiguous"),
+
+  /**
+   * Partitions are dealt to splits round-robin, so that dense neighbouring partitions (e.g. busy hours or
+   * consecutive ids) are spread over different tasks.
+   */
+  INTERLEAVED("Interleaved");
+
+  private final String value;
+
+  SplitAssignment(String value) {
+    this.value = value;
+  }
+
+  @Override
+  public String getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return this.getValue();
+  }
+}
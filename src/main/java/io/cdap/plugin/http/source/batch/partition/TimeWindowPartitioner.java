@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Divides the range between window start and window end into consecutive windows of the configured size.
+ * Every window is a partition, which fills {window.start} and {window.end} placeholders. The last window is
+ * truncated to the end of the range.
+ */
+public class TimeWindowPartitioner implements Partitioner {
+  public static final String WINDOW_START_PLACEHOLDER_NAME = "window.start";
+  public static final String WINDOW_END_PLACEHOLDER_NAME = "window.end";
+  public static final String WINDOW_START_PLACEHOLDER = "{" + WINDOW_START_PLACEHOLDER_NAME + "}";
+  public static final String WINDOW_END_PLACEHOLDER = "{" + WINDOW_END_PLACEHOLDER_NAME + "}";
+  public static final String FORMAT_EPOCH_SECOND = "epochSecond";
+  public static final String FORMAT_EPOCH_MILLI = "epochMilli";
+
+  private final Instant start;
+  private final Instant end;
+  private final Duration size;
+  private final Function<Instant, String> formatter;
+
+  public TimeWindowPartitioner(HttpBatchSourceConfig config) {
+    this.start = config.getWindowStart();
+    this.end = config.getWindowEnd();
+    this.size = config.getWindowSize();
+    this.formatter = createFormatter(config.getWindowFormat());
+  }
+
+  @Override
+  public List<Partition> getPartitions() {
+    List<Partition> partitions = new ArrayList<>();
+    for (Instant windowStart = start; windowStart.isBefore(end); windowStart = windowStart.plus(size)) {
+      Instant windowEnd = windowStart.plus(size);
+      if (windowEnd.isAfter(end)) {
+        windowEnd = end;
+      }
+      partitions.add(new Partition(ImmutableMap.of(WINDOW_START_PLACEHOLDER_NAME, formatter.apply(windowStart),
+                                                   WINDOW_END_PLACEHOLDER_NAME, formatter.apply(windowEnd))));
+    }
+    return partitions;
+  }
+
+  /**
+   * Creates a function, which renders window bounds in the given format. Besides of date-time patterns
+   * the format can be "epochSecond" or "epochMilli". If format is empty, ISO-8601 instant format is used.
+   *
+   * @throws IllegalArgumentException if the format is not a valid date-time pattern
+   */
+  public static Function<Instant, String> createFormatter(String format) {
+    if (Strings.isNullOrEmpty(format)) {
+      return DateTimeFormatter.ISO_INSTANT::format;
+    }
+    if (FORMAT_EPOCH_SECOND.equals(format)) {
+      return instant -> Long.toString(instant.getEpochSecond());
+    }
+    if (FORMAT_EPOCH_MILLI.equals(format)) {
+      return instant -> Long.toString(instant.toEpochMilli());
+    }
+    return DateTimeFormatter.ofPattern(format).withZone(ZoneOffset.UTC)::format;
+  }
+}
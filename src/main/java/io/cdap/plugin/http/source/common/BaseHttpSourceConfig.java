@@ -70,6 +70,13 @@ public abstract class BaseHttpSourceConfig extends BaseHttpConfig {
   public static final String PROPERTY_RETRY_POLICY = "retryPolicy";
   public static final String PROPERTY_LINEAR_RETRY_INTERVAL = "linearRetryInterval";
   public static final String PROPERTY_MAX_RETRY_DURATION = "maxRetryDuration";
+  public static final String PROPERTY_MAX_REQUESTS_PER_SECOND = "maxRequestsPerSecond";
+  public static final String PROPERTY_CIRCUIT_BREAKER_ERROR_RATE = "circuitBreakerErrorRate";
+  public static final String PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION = "circuitBreakerOpenDuration";
+  public static final String PROPERTY_RETRY_BUDGET = "retryBudget";
+  public static final String PROPERTY_HEDGE_DELAY = "hedgeDelay";
+  public static final String PROPERTY_HEDGE_PERCENTILE = "hedgePercentile";
+  public static final String PROPERTY_HEDGE_BUDGET = "hedgeBudget";
   public static final String PROPERTY_CONNECT_TIMEOUT = "connectTimeout";
   public static final String PROPERTY_READ_TIMEOUT = "readTimeout";
   public static final String PROPERTY_PAGINATION_TYPE = "paginationType";
@@ -96,6 +103,8 @@ public abstract class BaseHttpSourceConfig extends BaseHttpConfig {
 
   public static final String PAGINATION_INDEX_PLACEHOLDER_REGEX = "\\{pagination.index\\}";
   public static final String PAGINATION_INDEX_PLACEHOLDER = "{pagination.index}";
+  public static final long DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = 30L;
+  public static final double DEFAULT_HEDGE_BUDGET = 0.05;
 
   @Name(PROPERTY_URL)
   @Description("Url to fetch to the first page. The url must start with a protocol (e.g. http://).")
@@ -186,6 +195,56 @@ public abstract class BaseHttpSourceConfig extends BaseHttpConfig {
   @Macro
   protected Long maxRetryDuration;
 
+  @Nullable
+  @Name(PROPERTY_MAX_REQUESTS_PER_SECOND)
+  @Description("Maximum number of requests per second sent to a single host by the whole pipeline run, " +
+    "including retries. Wait time between pages is not applied then. If empty, requests are not limited.")
+  @Macro
+  protected Double maxRequestsPerSecond;
+
+  @Nullable
+  @Name(PROPERTY_CIRCUIT_BREAKER_ERROR_RATE)
+  @Description("Fraction of failed requests to a host, from 0 to 1, which opens the circuit breaker of the host. " +
+    "While the circuit is open, no requests are sent to the host. A request fails on an I/O error or on a status " +
+    "code, which is retried. If empty, the circuit breaker is disabled.")
+  @Macro
+  protected Double circuitBreakerErrorRate;
+
+  @Nullable
+  @Name(PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION)
+  @Description("Time in seconds the circuit breaker stays open before probe requests are sent. Defaults to 30.")
+  @Macro
+  protected Long circuitBreakerOpenDuration;
+
+  @Nullable
+  @Name(PROPERTY_RETRY_BUDGET)
+  @Description("Maximum number of retries to a host as a fraction of the requests to the host. For example, 0.1 " +
+    "allows one retry per ten requests. If the budget is exhausted, the request is not retried. " +
+    "If empty, retries are not limited.")
+  @Macro
+  protected Double retryBudget;
+
+  @Nullable
+  @Name(PROPERTY_HEDGE_DELAY)
+  @Description("Time in milliseconds to wait for the response headers of a GET request before a duplicate request " +
+    "is sent. The response which arrives first is used and the other request is cancelled. If hedge percentile " +
+    "is set, this delay is only used until enough latencies are observed. If empty, requests are not hedged.")
+  @Macro
+  protected Long hedgeDelay;
+
+  @Nullable
+  @Name(PROPERTY_HEDGE_PERCENTILE)
+  @Description("Percentile of the latencies of the recent requests, after which a duplicate GET request is sent. " +
+    "For example, 95 hedges requests slower than 95% of the recent requests.")
+  @Macro
+  protected Double hedgePercentile;
+
+  @Nullable
+  @Name(PROPERTY_HEDGE_BUDGET)
+  @Description("Maximum fraction of the requests which can be hedged. Defaults to 0.05.")
+  @Macro
+  protected Double hedgeBudget;
+
   @Name(PROPERTY_CONNECT_TIMEOUT)
   @Description("Maximum time in seconds connection initialization is allowed to take.")
   @Macro
@@ -391,6 +450,43 @@ public abstract class BaseHttpSourceConfig extends BaseHttpConfig {
     return maxRetryDuration;
   }
 
+  @Nullable
+  public Double getMaxRequestsPerSecond() {
+    return maxRequestsPerSecond;
+  }
+
+  @Nullable
+  public Double getCircuitBreakerErrorRate() {
+    return circuitBreakerErrorRate;
+  }
+
+  public long getCircuitBreakerOpenDuration() {
+    return circuitBreakerOpenDuration == null ? DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION : circuitBreakerOpenDuration;
+  }
+
+  @Nullable
+  public Double getRetryBudget() {
+    return retryBudget;
+  }
+
+  @Nullable
+  public Long getHedgeDelay() {
+    return hedgeDelay;
+  }
+
+  @Nullable
+  public Double getHedgePercentile() {
+    return hedgePercentile;
+  }
+
+  public double getHedgeBudget() {
+    return hedgeBudget == null ? DEFAULT_HEDGE_BUDGET : hedgeBudget;
+  }
+
+  public boolean isHedgingEnabled() {
+    return hedgeDelay != null || hedgePercentile != null;
+  }
+
   public Integer getConnectTimeout() {
     return connectTimeout;
   }
@@ -563,14 +659,25 @@ public abstract class BaseHttpSourceConfig extends BaseHttpConfig {
     return Strings.isNullOrEmpty(referenceName) ? ReferenceNames.normalizeFqn(url) : referenceName;
   }
 
+  /**
+   * @return url to be checked for validity, or null if the url cannot be validated before the run
+   */
+  @Nullable
+  protected String getUrlForValidation() {
+    // replace with placeholder with anything just during pagination
+    return getUrl().replaceAll(PAGINATION_INDEX_PLACEHOLDER_REGEX, "0");
+  }
+
   public void validate(FailureCollector failureCollector) {
     super.validate(failureCollector);
 
     // Validate URL
     if (!containsMacro(PROPERTY_URL)) {
       try {
-        // replace with placeholder with anything just during pagination
-        new URL(getUrl().replaceAll(PAGINATION_INDEX_PLACEHOLDER_REGEX, "0"));
+        String urlForValidation = getUrlForValidation();
+        if (urlForValidation != null) {
+          new URL(urlForValidation);
+        }
 
         // Validate HTTP Error Handling Map
         if (!containsMacro(PROPERTY_HTTP_ERROR_HANDLING)) {
@@ -597,6 +704,48 @@ public abstract class BaseHttpSourceConfig extends BaseHttpConfig {
       }
     }
 
+    if (!containsMacro(PROPERTY_MAX_REQUESTS_PER_SECOND) && maxRequestsPerSecond != null &&
+      maxRequestsPerSecond <= 0) {
+      throw new InvalidConfigPropertyException("Max requests per second must be greater than 0.",
+                                               PROPERTY_MAX_REQUESTS_PER_SECOND);
+    }
+
+    if (!containsMacro(PROPERTY_CIRCUIT_BREAKER_ERROR_RATE) && circuitBreakerErrorRate != null &&
+      (circuitBreakerErrorRate <= 0 || circuitBreakerErrorRate > 1)) {
+      throw new InvalidConfigPropertyException("Circuit breaker error rate must be greater than 0 and at most 1.",
+                                               PROPERTY_CIRCUIT_BREAKER_ERROR_RATE);
+    }
+
+    if (!containsMacro(PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION) && circuitBreakerOpenDuration != null &&
+      circuitBreakerOpenDuration < 1) {
+      throw new InvalidConfigPropertyException("Circuit breaker open duration must be at least 1 second.",
+                                               PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION);
+    }
+
+    if (!containsMacro(PROPERTY_RETRY_BUDGET) && retryBudget != null && retryBudget < 0) {
+      throw new InvalidConfigPropertyException("Retry budget cannot be a negative number.", PROPERTY_RETRY_BUDGET);
+    }
+
+    if (!containsMacro(PROPERTY_HEDGE_DELAY) && hedgeDelay != null && hedgeDelay < 1) {
+      throw new InvalidConfigPropertyException("Hedge delay must be at least 1 millisecond.", PROPERTY_HEDGE_DELAY);
+    }
+
+    if (!containsMacro(PROPERTY_HEDGE_PERCENTILE) && hedgePercentile != null &&
+      (hedgePercentile <= 0 || hedgePercentile >= 100)) {
+      throw new InvalidConfigPropertyException("Hedge percentile must be greater than 0 and less than 100.",
+                                               PROPERTY_HEDGE_PERCENTILE);
+    }
+
+    if (!containsMacro(PROPERTY_HEDGE_BUDGET) && hedgeBudget != null && (hedgeBudget < 0 || hedgeBudget > 1)) {
+      throw new InvalidConfigPropertyException("Hedge budget must be between 0 and 1.", PROPERTY_HEDGE_BUDGET);
+    }
+
+    // duplicate requests are only safe for idempotent reads
+    if (!containsMacro(PROPERTY_HTTP_METHOD) && isHedgingEnabled() && !"GET".equalsIgnoreCase(getHttpMethod())) {
+      throw new InvalidConfigPropertyException("Hedged requests are only supported for GET http method.",
+                                               PROPERTY_HTTP_METHOD);
+    }
+
     // Validate Linear Retry Interval
     if (!containsMacro(PROPERTY_RETRY_POLICY) && getRetryPolicy() == RetryPolicy.LINEAR) {
       assertIsSet(getLinearRetryInterval(), PROPERTY_LINEAR_RETRY_INTERVAL, "retry policy is linear");
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.error;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link CircuitBreaker}
+ */
+public class CircuitBreakerTest {
+  private static final long OPEN_DURATION_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final AtomicLong clock = new AtomicLong();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("example.com", 0.5, OPEN_DURATION_NANOS,
+                                                                   clock::get);
+
+  @Test
+  public void testOpensOnErrorRate() {
+    for (int i = 0; i < CircuitBreaker.MIN_REQUESTS / 2; i++) {
+      circuitBreaker.onSuccess();
+    }
+    for (int i = 0; i < CircuitBreaker.MIN_REQUESTS / 2 - 1; i++) {
+      circuitBreaker.onFailure();
+    }
+    Assert.assertTrue(circuitBreaker.allowRequest());
+
+    circuitBreaker.onFailure();
+    Assert.assertTrue(circuitBreaker.isOpen());
+    Assert.assertFalse(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  public void testBreakersAreSharedPerThresholds() {
+    CircuitBreaker breaker = CircuitBreaker.forHost("shared.example.com", 0.5, 30);
+    Assert.assertSame(breaker, CircuitBreaker.forHost("shared.example.com", 0.5, 30));
+    Assert.assertNotSame(breaker, CircuitBreaker.forHost("shared.example.com", 0.2, 30));
+    Assert.assertNotSame(breaker, CircuitBreaker.forHost("shared.example.com", 0.5, 60));
+  }
+
+  @Test
+  public void testDoesNotOpenBelowMinRequests() {
+    for (int i = 0; i < CircuitBreaker.MIN_REQUESTS - 1; i++) {
+      circuitBreaker.onFailure();
+    }
+    Assert.assertFalse(circuitBreaker.isOpen());
+  }
+
+  @Test
+  public void testHalfOpenProbes() {
+    openCircuit();
+    clock.addAndGet(OPEN_DURATION_NANOS);
+
+    // a single probe at a time
+    Assert.assertTrue(circuitBreaker.allowRequest());
+    Assert.assertFalse(circuitBreaker.allowRequest());
+    circuitBreaker.onFailure();
+    Assert.assertTrue(circuitBreaker.isOpen());
+
+    clock.addAndGet(OPEN_DURATION_NANOS);
+    for (int i = 0; i < CircuitBreaker.PROBES_TO_CLOSE; i++) {
+      Assert.assertTrue(circuitBreaker.allowRequest());
+      circuitBreaker.onSuccess();
+    }
+    Assert.assertTrue(circuitBreaker.allowRequest());
+    Assert.assertTrue(circuitBreaker.allowRequest());
+
+    // window was reset on close, so previous failures do not count
+    for (int i = 0; i < CircuitBreaker.MIN_REQUESTS - 1; i++) {
+      circuitBreaker.onFailure();
+    }
+    Assert.assertFalse(circuitBreaker.isOpen());
+  }
+
+  @Test
+  public void testLostProbeDoesNotBlockForever() {
+    openCircuit();
+    clock.addAndGet(OPEN_DURATION_NANOS);
+    Assert.assertTrue(circuitBreaker.allowRequest());
+
+    clock.addAndGet(OPEN_DURATION_NANOS);
+    Assert.assertTrue(circuitBreaker.allowRequest());
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < CircuitBreaker.MIN_REQUESTS; i++) {
+      circuitBreaker.onFailure();
+    }
+    Assert.assertTrue(circuitBreaker.isOpen());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.error;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RetryBudget}
+ */
+public class RetryBudgetTest {
+
+  @Test
+  public void testRetriesAreCappedByRatio() {
+    RetryBudget retryBudget = new RetryBudget(0.25);
+    for (int i = 0; i < RetryBudget.MIN_RETRIES; i++) {
+      Assert.assertTrue(retryBudget.tryRetry());
+    }
+    Assert.assertFalse(retryBudget.tryRetry());
+
+    for (int i = 0; i < 3; i++) {
+      retryBudget.onRequest();
+    }
+    Assert.assertFalse(retryBudget.tryRetry());
+    retryBudget.onRequest();
+    Assert.assertTrue(retryBudget.tryRetry());
+    Assert.assertFalse(retryBudget.tryRetry());
+  }
+
+  @Test
+  public void testRefundedRetryCanBeTakenAgain() {
+    RetryBudget retryBudget = new RetryBudget(0.25);
+    for (int i = 0; i < RetryBudget.MIN_RETRIES; i++) {
+      Assert.assertTrue(retryBudget.tryRetry());
+    }
+    Assert.assertFalse(retryBudget.tryRetry());
+
+    retryBudget.refundRetry();
+    Assert.assertTrue(retryBudget.tryRetry());
+    Assert.assertFalse(retryBudget.tryRetry());
+  }
+
+  @Test
+  public void testBudgetsAreSharedPerRatio() {
+    RetryBudget retryBudget = RetryBudget.forHost("shared.example.com", 0.1);
+    Assert.assertSame(retryBudget, RetryBudget.forHost("shared.example.com", 0.1));
+    Assert.assertNotSame(retryBudget, RetryBudget.forHost("shared.example.com", 0.2));
+  }
+
+  @Test
+  public void testBalanceIsCapped() {
+    RetryBudget retryBudget = new RetryBudget(0.25);
+    for (int i = 0; i < RetryBudget.REQUESTS_WINDOW * 10; i++) {
+      retryBudget.onRequest();
+    }
+
+    int retries = 0;
+    while (retryBudget.tryRetry()) {
+      retries++;
+    }
+    Assert.assertEquals(RetryBudget.MIN_RETRIES + RetryBudget.REQUESTS_WINDOW / 4, retries);
+  }
+}
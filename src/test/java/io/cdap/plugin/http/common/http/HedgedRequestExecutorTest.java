@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.http;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link HedgedRequestExecutor}
+ */
+public class HedgedRequestExecutorTest {
+
+  @Test
+  public void testHedgeWinsAndPrimaryIsAborted() throws Exception {
+    CloseableHttpResponse hedgeResponse = Mockito.mock(CloseableHttpResponse.class);
+    List<HttpRequestBase> requests = Collections.synchronizedList(new ArrayList<>());
+    HedgedRequestExecutor executor = new HedgedRequestExecutor(50L, null, 1);
+
+    long startTime = System.nanoTime();
+    CloseableHttpResponse response = executor.execute(() -> new HttpGet("http://localhost/items"), request -> {
+      requests.add(request);
+      if (requests.size() == 1) {
+        return waitUntilAborted(request);
+      }
+      return hedgeResponse;
+    }, () -> true);
+
+    Assert.assertSame(hedgeResponse, response);
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 2000);
+    Assert.assertEquals(2, requests.size());
+    Assert.assertTrue(requests.get(0).isAborted());
+    Assert.assertFalse(requests.get(1).isAborted());
+  }
+
+  @Test
+  public void testHedgesAreLimitedByBudget() throws Exception {
+    CloseableHttpResponse slowResponse = Mockito.mock(CloseableHttpResponse.class);
+    List<HttpRequestBase> requests = Collections.synchronizedList(new ArrayList<>());
+    HedgedRequestExecutor executor = new HedgedRequestExecutor(10L, null, 0.5);
+
+    // the first request is not hedged, since a hedge would be 100% of the requests
+    CloseableHttpResponse response = executor.execute(() -> new HttpGet("http://localhost/items"), request -> {
+      requests.add(request);
+      sleep(200);
+      return slowResponse;
+    }, () -> true);
+
+    Assert.assertSame(slowResponse, response);
+    Assert.assertEquals(1, requests.size());
+  }
+
+  @Test
+  public void testFailedHedgeFallsBackToPrimary() throws Exception {
+    CloseableHttpResponse primaryResponse = Mockito.mock(CloseableHttpResponse.class);
+    List<HttpRequestBase> requests = Collections.synchronizedList(new ArrayList<>());
+    HedgedRequestExecutor executor = new HedgedRequestExecutor(50L, null, 1);
+
+    CloseableHttpResponse response = executor.execute(() -> new HttpGet("http://localhost/items"), request -> {
+      requests.add(request);
+      if (requests.size() == 1) {
+        sleep(300);
+        return primaryResponse;
+      }
+      throw new IOException("Connection reset");
+    }, () -> true);
+
+    Assert.assertSame(primaryResponse, response);
+    Assert.assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testHedgeIsNotSentWithoutPermit() throws Exception {
+    CloseableHttpResponse slowResponse = Mockito.mock(CloseableHttpResponse.class);
+    List<HttpRequestBase> requests = Collections.synchronizedList(new ArrayList<>());
+    HedgedRequestExecutor executor = new HedgedRequestExecutor(10L, null, 1);
+
+    CloseableHttpResponse response = executor.execute(() -> new HttpGet("http://localhost/items"), request -> {
+      requests.add(request);
+      sleep(200);
+      return slowResponse;
+    }, () -> false);
+
+    Assert.assertSame(slowResponse, response);
+    Assert.assertEquals(1, requests.size());
+  }
+
+  @Test
+  public void testExecutorsAreSharedPerHostAndSettings() {
+    HedgedRequestExecutor executor = HedgedRequestExecutor.forHost("shared.example.com", 100L, 95.0, 0.05);
+    Assert.assertSame(executor, HedgedRequestExecutor.forHost("shared.example.com", 100L, 95.0, 0.05));
+    Assert.assertNotSame(executor, HedgedRequestExecutor.forHost("shared.example.com", 100L, 99.0, 0.05));
+    Assert.assertNotSame(executor, HedgedRequestExecutor.forHost("other.example.com", 100L, 95.0, 0.05));
+  }
+
+  private static CloseableHttpResponse waitUntilAborted(HttpRequestBase request) throws IOException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!request.isAborted() && System.nanoTime() < deadline) {
+      sleep(10);
+    }
+    throw new IOException("Request aborted");
+  }
+
+  private static void sleep(long millis) throws IOException {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+  }
+}
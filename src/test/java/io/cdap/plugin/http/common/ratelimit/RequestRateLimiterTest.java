@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.common.ratelimit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link RequestRateLimiter}
+ */
+public class RequestRateLimiterTest {
+
+  @Test
+  public void testSharesAreSummedPerHost() throws Exception {
+    String url = "http://shared.example.com/items";
+    try (RequestRateLimiter first = new RequestRateLimiter(10);
+         RequestRateLimiter second = new RequestRateLimiter(10)) {
+      first.acquire(url);
+      second.acquire(url);
+      Assert.assertEquals(20, HostTokenBucket.forHost("shared.example.com").getRequestsPerSecond(), 0.001);
+
+      long startTime = System.nanoTime();
+      // 20 requests at 20 requests per second, the first token was already taken
+      for (int i = 0; i < 10; i++) {
+        first.acquire(url);
+        second.acquire(url);
+      }
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+      Assert.assertTrue("Requests were not limited: " + elapsedMillis, elapsedMillis >= 900);
+    }
+
+    Assert.assertEquals(0, HostTokenBucket.forHost("shared.example.com").getRequestsPerSecond(), 0.001);
+  }
+
+  @Test
+  public void testTryAcquireDoesNotWait() {
+    try (RequestRateLimiter limiter = new RequestRateLimiter(1)) {
+      Assert.assertTrue(limiter.tryAcquire("http://optional.example.com/items"));
+      Assert.assertFalse(limiter.tryAcquire("http://optional.example.com/items"));
+    }
+  }
+
+  @Test
+  public void testHostsAreLimitedSeparately() throws Exception {
+    try (RequestRateLimiter limiter = new RequestRateLimiter(1)) {
+      long startTime = System.nanoTime();
+      limiter.acquire("http://first.example.com/items");
+      limiter.acquire("http://second.example.com/items");
+      limiter.acquire("http://first.example.com:8080/items");
+      Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 500);
+    }
+  }
+}
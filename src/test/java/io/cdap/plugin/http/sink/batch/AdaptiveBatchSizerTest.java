@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AdaptiveBatchSizer}
+ */
+public class AdaptiveBatchSizerTest {
+
+  @Test
+  public void testFixedSizeOnlyShrinksWhenTooLarge() {
+    AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(100, 100, 100);
+    sendBatches(batchSizer, 100, 10, 1);
+    Assert.assertEquals(100, batchSizer.getBatchSize());
+
+    batchSizer.onTooLarge(100);
+    Assert.assertEquals(50, batchSizer.getBatchSize());
+    batchSizer.onTooLarge(50);
+    Assert.assertEquals(25, batchSizer.getBatchSize());
+  }
+
+  @Test
+  public void testClimbsWhileThroughputImproves() {
+    AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(10, 1, 1000);
+    // latency is flat, so larger batches give better throughput
+    for (int i = 0; i < 20; i++) {
+      sendBatches(batchSizer, batchSizer.getBatchSize(), AdaptiveBatchSizer.BATCHES_PER_STEP, 100);
+    }
+    // keeps probing around the bound
+    Assert.assertTrue("Batch size is " + batchSizer.getBatchSize(),
+                      batchSizer.getBatchSize() >= 1000 / AdaptiveBatchSizer.STEP_FACTOR);
+  }
+
+  @Test
+  public void testTurnsBackWhenThroughputDrops() {
+    AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(100, 1, 1000);
+    // throughput is the best at 150 records per batch
+    for (int i = 0; i < 40; i++) {
+      int size = batchSizer.getBatchSize();
+      long latencyMillis = size <= 150 ? 100 : size;
+      sendBatches(batchSizer, size, AdaptiveBatchSizer.BATCHES_PER_STEP, latencyMillis);
+      Assert.assertTrue("Batch size is " + batchSizer.getBatchSize(), batchSizer.getBatchSize() <= 338);
+    }
+  }
+
+  @Test
+  public void testTooLargeCapsSize() {
+    AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(100, 1, 1000);
+    batchSizer.onTooLarge(100);
+    Assert.assertEquals(50, batchSizer.getBatchSize());
+    for (int i = 0; i < 20; i++) {
+      sendBatches(batchSizer, batchSizer.getBatchSize(), AdaptiveBatchSizer.BATCHES_PER_STEP, 100);
+      Assert.assertTrue(batchSizer.getBatchSize() <= 50);
+    }
+  }
+
+  private static void sendBatches(AdaptiveBatchSizer batchSizer, int size, int count, long latencyMillis) {
+    for (int i = 0; i < count; i++) {
+      batchSizer.onBatchSent(size, TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link AdaptiveConcurrencyLimiter}
+ */
+public class AdaptiveConcurrencyLimiterTest {
+  private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  public void testAdditiveIncrease() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, null, clock::get);
+    Assert.assertEquals(1, limiter.getLimit());
+
+    // 1 + 1/1 + 1/2 + 1/2.5 + ...
+    long[] limits = {2, 2, 2, 3, 3, 3, 4};
+    for (long expectedLimit : limits) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+      Assert.assertEquals(expectedLimit, limiter.getLimit());
+    }
+
+    for (int i = 0; i < 10; i++) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+    }
+    Assert.assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  public void testMultiplicativeDecreaseOncePerRound() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, null, clock::get);
+    while (limiter.getLimit() < 8) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+    }
+
+    long[] startTimes = new long[3];
+    for (int i = 0; i < startTimes.length; i++) {
+      startTimes[i] = limiter.acquire();
+    }
+    clock.addAndGet(LATENCY_NANOS);
+    // the first overload halves the limit, requests started before it do not decrease it again
+    limiter.release(startTimes[0], LATENCY_NANOS, true);
+    Assert.assertEquals(4, limiter.getLimit());
+    limiter.release(startTimes[1], LATENCY_NANOS, true);
+    limiter.release(startTimes[2], LATENCY_NANOS, true);
+    Assert.assertEquals(4, limiter.getLimit());
+
+    sendRequest(limiter, LATENCY_NANOS, true);
+    Assert.assertEquals(2, limiter.getLimit());
+    sendRequest(limiter, LATENCY_NANOS, true);
+    sendRequest(limiter, LATENCY_NANOS, true);
+    Assert.assertEquals(1, limiter.getLimit());
+  }
+
+  @Test
+  public void testDecreaseOnLatency() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, null, clock::get);
+    for (int i = 0; i < 10; i++) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+    }
+    int limit = limiter.getLimit();
+
+    // within tolerance
+    sendRequest(limiter, LATENCY_NANOS * 2, false);
+    Assert.assertTrue(limiter.getLimit() >= limit);
+    limit = limiter.getLimit();
+
+    sendRequest(limiter, LATENCY_NANOS * 3, false);
+    Assert.assertEquals(limit / 2, limiter.getLimit());
+  }
+
+  @Test
+  public void testBaselineLatencyExpires() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, null, clock::get);
+    // a single fast response early on
+    sendRequest(limiter, LATENCY_NANOS / 10, false);
+    for (int i = 0; i < AdaptiveConcurrencyLimiter.LATENCY_WINDOW; i++) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+    }
+    Assert.assertEquals(1, limiter.getLimit());
+
+    // the fast response left the window, so the usual latency no longer counts as an increase
+    for (int i = 0; i < 10; i++) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+    }
+    Assert.assertTrue(limiter.getLimit() > 1);
+  }
+
+  @Test
+  public void testOnlyExchangeLatencyCounts() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, null, clock::get);
+    for (int i = 0; i < 10; i++) {
+      sendRequest(limiter, LATENCY_NANOS, false);
+    }
+    int limit = limiter.getLimit();
+
+    // waits between retries make the request take long, the exchange itself did not get slower
+    long startTime = limiter.acquire();
+    clock.addAndGet(LATENCY_NANOS * 10);
+    limiter.release(startTime, LATENCY_NANOS, false);
+    Assert.assertTrue(limiter.getLimit() >= limit);
+
+    // an attempt without a response does not change the limit
+    limit = limiter.getLimit();
+    startTime = limiter.acquire();
+    clock.addAndGet(LATENCY_NANOS * 10);
+    limiter.release(startTime, 0, false);
+    Assert.assertEquals(limit, limiter.getLimit());
+  }
+
+  private void sendRequest(AdaptiveConcurrencyLimiter limiter, long latencyNanos,
+                           boolean overloaded) throws InterruptedException {
+    long startTime = limiter.acquire();
+    clock.addAndGet(latencyNanos);
+    limiter.release(startTime, latencyNanos, overloaded);
+  }
+}
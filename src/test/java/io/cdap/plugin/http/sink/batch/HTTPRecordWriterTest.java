@@ -0,0 +1,519 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import com.github.tomakehurst.wiremock.client.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Tests for {@link HTTPRecordWriter}
+ */
+public class HTTPRecordWriterTest {
+  private static final Schema SCHEMA = Schema.recordOf("record",
+                                                       Schema.Field.of("id", Schema.of(Schema.Type.INT)));
+
+  @Rule
+  public WireMockRule wireMockRule = new WireMockRule(0);
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testTooLargeBatchIsSplit() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    // records 1 and 2 are too large together
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.matching("(?s).*\"id\":1.*\"id\":2.*"))
+                       .willReturn(WireMock.aResponse().withStatus(413)));
+
+    HTTPRecordWriter writer = new HTTPRecordWriter(getConfig(4), SCHEMA, null);
+    for (int i = 1; i <= 5; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    // [1, 2, 3, 4] -> [1, 2] -> [1], [2]; [3, 4]; [5]
+    wireMockRule.verify(6, WireMock.postRequestedFor(WireMock.urlMatching("/items.*")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":3},{\"id\":4}]")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":5}]")));
+  }
+
+  @Test
+  public void testFailedRecordIsIsolated() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.matching("(?s).*\"id\":3.*"))
+                       .willReturn(WireMock.aResponse().withStatus(400)));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(4)).setWriteJsonAsArray(true)
+      .setIsolateFailedRecords(true)
+      .setErrorHandling("skipOnError")
+      .setHttpErrorsHandling("2..:Success,.*:Fail")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    for (int i = 1; i <= 5; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    // [1, 2, 3, 4] -> [1, 2]; [3, 4] -> [3], [4]; [5]
+    wireMockRule.verify(6, WireMock.postRequestedFor(WireMock.urlMatching("/items.*")));
+    for (String body : new String[]{"[{\"id\":1},{\"id\":2}]", "[{\"id\":3}]", "[{\"id\":4}]"}) {
+      wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+        .withRequestBody(WireMock.equalTo(body)));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testIsolatedRecordStopsOnError() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(400)));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setIsolateFailedRecords(true)
+      .setErrorHandling("stopOnError")
+      .setHttpErrorsHandling("2..:Success,.*:Fail")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    writer.write(StructuredRecord.builder(SCHEMA).set("id", 1).build(), null);
+    writer.write(StructuredRecord.builder(SCHEMA).set("id", 2).build(), null);
+  }
+
+  @Test
+  public void testOnlyFailedItemsAreRetried() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)
+                                     .withBody("{\"items\":[{\"status\":201},{\"status\":429},{\"status\":400}]}")));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.equalTo("[{\"id\":2}]"))
+                       .willReturn(WireMock.aResponse().withStatus(200).withBody("{\"items\":[{\"status\":201}]}")));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(3)).setWriteJsonAsArray(true)
+      .setItemResultsPath("/items")
+      .setHttpErrorsHandling("2..:Success,429:Retry and fail,.*:Skip")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    for (int i = 1; i <= 3; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    wireMockRule.verify(2, WireMock.postRequestedFor(WireMock.urlMatching("/items.*")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":2}]")));
+  }
+
+  @Test
+  public void testStoppedItemFailsAfterOtherItemsAreSent() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)
+                                     .withBody("{\"items\":[{\"status\":400},{\"status\":429},{\"status\":201}]}")));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.equalTo("[{\"id\":2}]"))
+                       .willReturn(WireMock.aResponse().withStatus(200).withBody("{\"items\":[{\"status\":201}]}")));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(3)).setWriteJsonAsArray(true)
+      .setItemResultsPath("/items")
+      .setHttpErrorsHandling("2..:Success,429:Retry and fail,.*:Fail")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    try {
+      for (int i = 1; i <= 3; i++) {
+        writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+      }
+      Assert.fail("Expected the task to fail on the stopped item");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("[{\"id\":1}]"));
+    }
+
+    // the retried item is sent before the task fails
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":2}]")));
+  }
+
+  @Test
+  public void testOnlyStoppedItemsAreSpilled() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)
+                                     .withBody("{\"items\":[{\"status\":201},{\"status\":400},{\"status\":201}]}")));
+    File deadLetterDirectory = temporaryFolder.newFolder("dead-letters");
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(3)).setWriteJsonAsArray(true)
+      .setItemResultsPath("/items")
+      .setDeadLetterPath(deadLetterDirectory.getAbsolutePath())
+      .setHttpErrorsHandling("2..:Success,.*:Fail")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    for (int i = 1; i <= 3; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*")));
+    File[] bodies = deadLetterDirectory.listFiles((dir, name) -> name.endsWith(".body"));
+    Assert.assertEquals(1, bodies.length);
+    Assert.assertEquals("[{\"id\":2}]", new String(Files.readAllBytes(bodies[0].toPath()), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRecordsAreBatchedPerUrl() throws Exception {
+    WireMock.stubFor(WireMock.put(WireMock.urlMatching("/items/.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    Schema schema = Schema.recordOf("record", Schema.Field.of("group", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("id", Schema.of(Schema.Type.INT)));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setUrl(String.format("http://localhost:%d/items/#group", wireMockRule.port()))
+      .setMethod("PUT")
+      .setBatchLingerTime(60000L)
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, schema, null);
+    String[] groups = {"a", "b", "a", "c", "b"};
+    for (int i = 0; i < groups.length; i++) {
+      writer.write(StructuredRecord.builder(schema).set("group", groups[i]).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    wireMockRule.verify(3, WireMock.putRequestedFor(WireMock.urlMatching("/items/.*")));
+    wireMockRule.verify(1, WireMock.putRequestedFor(WireMock.urlEqualTo("/items/a"))
+      .withRequestBody(WireMock.equalTo("[{\"group\":\"a\",\"id\":0},{\"group\":\"a\",\"id\":2}]")));
+    wireMockRule.verify(1, WireMock.putRequestedFor(WireMock.urlEqualTo("/items/b"))
+      .withRequestBody(WireMock.equalTo("[{\"group\":\"b\",\"id\":1},{\"group\":\"b\",\"id\":4}]")));
+    wireMockRule.verify(1, WireMock.putRequestedFor(WireMock.urlEqualTo("/items/c"))
+      .withRequestBody(WireMock.equalTo("[{\"group\":\"c\",\"id\":3}]")));
+  }
+
+  @Test
+  public void testRecordsAreSentInOrderedLanes() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setMaxConcurrentRequests(2)
+      .setOrderingKeyFields("id")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    for (int i = 1; i <= 4; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i % 2).build(), null);
+    }
+    writer.close(null);
+
+    // records with the same key share the lane and its batches
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":0},{\"id\":0}]")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":1},{\"id\":1}]")));
+  }
+
+  @Test
+  public void testBodyFieldIsSentVerbatim() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    Schema schema = Schema.recordOf("record", Schema.Field.of("payload", Schema.of(Schema.Type.BYTES)),
+                                    Schema.Field.of("type", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(10))
+      .setBodyField("payload")
+      .setBodyContentTypeField("type")
+      .setBodyContentType("text/csv")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, schema, null);
+    writer.write(StructuredRecord.builder(schema).set("payload", "{\"id\":1}".getBytes(StandardCharsets.UTF_8))
+                   .set("type", "application/json").build(), null);
+    writer.write(StructuredRecord.builder(schema)
+                   .set("payload", ByteBuffer.wrap("#1,2,3#".getBytes(StandardCharsets.UTF_8), 1, 5)).build(), null);
+    writer.close(null);
+
+    wireMockRule.verify(2, WireMock.postRequestedFor(WireMock.urlMatching("/items.*")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withHeader("Content-Type", WireMock.equalTo("application/json"))
+      .withRequestBody(WireMock.equalTo("{\"id\":1}")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withHeader("Content-Type", WireMock.equalTo("text/csv"))
+      .withRequestBody(WireMock.equalTo("1,2,3")));
+  }
+
+  @Test
+  public void testMultipartBodyHasPartPerField() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    Schema schema = Schema.recordOf("record", Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("file", Schema.of(Schema.Type.BYTES)),
+                                    Schema.Field.of("size", Schema.nullableOf(Schema.of(Schema.Type.INT))));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(10)).setMessageFormat("Multipart").build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, schema, null);
+    writer.write(StructuredRecord.builder(schema).set("name", "a.txt")
+                   .set("file", "content".getBytes(StandardCharsets.UTF_8)).build(), null);
+    writer.close(null);
+
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withHeader("Content-Type", WireMock.matching("multipart/form-data; boundary=[\\w-]+"))
+      .withRequestBody(WireMock.matching("--[\\w-]+\r\nContent-Disposition: form-data; name=\"name\"\r\n\r\n" +
+                                           "a.txt\r\n--[\\w-]+\r\nContent-Disposition: form-data; " +
+                                           "name=\"file\"; filename=\"file\"\r\n" +
+                                           "Content-Type: application/octet-stream\r\n\r\ncontent\r\n" +
+                                           "--[\\w-]+--\r\n")));
+  }
+
+  @Test
+  public void testKeysAreSentInBulkRequests() throws Exception {
+    WireMock.stubFor(WireMock.delete(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+
+    HTTPSinkConfig deleteConfig = HTTPSinkConfig.newBuilder(getConfig(2))
+      .setUrl(String.format("http://localhost:%d/items?ids={keys}", wireMockRule.port()))
+      .setMethod("DELETE")
+      .setBulkKeyFields("id")
+      .build();
+    HTTPSinkConfig postConfig = HTTPSinkConfig.newBuilder(getConfig(3))
+      .setUrl(String.format("http://localhost:%d/items:batchDelete", wireMockRule.port()))
+      .setBulkKeyFields("id")
+      .setBulkRequestBody("{\"ids\":{keys}}")
+      .build();
+    for (HTTPSinkConfig config : new HTTPSinkConfig[]{deleteConfig, postConfig}) {
+      HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+      for (int i = 1; i <= 5; i++) {
+        writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+      }
+      writer.close(null);
+    }
+
+    wireMockRule.verify(3, WireMock.deleteRequestedFor(WireMock.urlMatching("/items.*")));
+    for (String ids : new String[]{"1,2", "3,4", "5"}) {
+      wireMockRule.verify(1, WireMock.deleteRequestedFor(WireMock.urlEqualTo("/items?ids=" + ids)));
+    }
+    wireMockRule.verify(2, WireMock.postRequestedFor(WireMock.urlEqualTo("/items:batchDelete")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo("/items:batchDelete"))
+      .withRequestBody(WireMock.equalTo("{\"ids\":[1,2,3]}")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo("/items:batchDelete"))
+      .withRequestBody(WireMock.equalTo("{\"ids\":[4,5]}")));
+  }
+
+  @Test
+  public void testFailedBatchIsSpilledAndReplayed() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.matching("(?s).*\"id\":1.*"))
+                       .willReturn(WireMock.aResponse().withStatus(503).withBody("unavailable")));
+    File deadLetterDirectory = temporaryFolder.newFolder("dead-letters");
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setDeadLetterPath(deadLetterDirectory.getAbsolutePath())
+      .setHttpErrorsHandling("2..:Success,.*:Retry and fail")
+      .setMaxRetryDuration(1L)
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    for (int i = 1; i <= 4; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    // the task goes on with the next batch
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":3},{\"id\":4}]")));
+    File[] bodies = deadLetterDirectory.listFiles((dir, name) -> name.endsWith(".body"));
+    Assert.assertEquals(1, bodies.length);
+    Assert.assertEquals("[{\"id\":1},{\"id\":2}]",
+                        new String(Files.readAllBytes(bodies[0].toPath()), StandardCharsets.UTF_8));
+
+    RequestPatternBuilder spilledRequest = WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withHeader("Content-Type", WireMock.equalTo("application/json"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":1},{\"id\":2}]"));
+    int attempts = WireMock.findAll(spilledRequest).size();
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    HTTPRecordWriter replayWriter = new HTTPRecordWriter(config, SCHEMA, null);
+    Assert.assertEquals(1, replayWriter.replayDeadLetters());
+    replayWriter.close(null);
+
+    wireMockRule.verify(attempts + 1, spilledRequest);
+    Assert.assertEquals(0, deadLetterDirectory.listFiles((dir, name) -> !name.startsWith(".")).length);
+  }
+
+  @Test
+  public void testReplayedRequestIsSpilledAgainOnFailure() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(400)));
+    File deadLetterDirectory = temporaryFolder.newFolder("dead-letters");
+
+    HTTPSinkConfig writeConfig = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setDeadLetterPath(deadLetterDirectory.getAbsolutePath())
+      .setHttpErrorsHandling("2..:Success,.*:Retry and fail")
+      .setMaxRetryDuration(1L)
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(writeConfig, SCHEMA, null);
+    for (int i = 1; i <= 2; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+    Assert.assertEquals(1, deadLetterDirectory.listFiles((dir, name) -> name.endsWith(".body")).length);
+
+    // neither bisected nor failing the replay, the request is spilled anew
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(writeConfig).setWriteJsonAsArray(true)
+      .setItemResultsPath("/items")
+      .setIsolateFailedRecords(true)
+      .setHttpErrorsHandling("2..:Success,.*:Fail")
+      .build();
+    HTTPRecordWriter replayWriter = new HTTPRecordWriter(config, SCHEMA, null);
+    Assert.assertEquals(0, replayWriter.replayDeadLetters());
+    replayWriter.close(null);
+    File[] bodies = deadLetterDirectory.listFiles((dir, name) -> name.endsWith(".body"));
+    Assert.assertEquals(1, bodies.length);
+    Assert.assertEquals("[{\"id\":1},{\"id\":2}]",
+                        new String(Files.readAllBytes(bodies[0].toPath()), StandardCharsets.UTF_8));
+
+    // the response of a replayed bulk request has no items to match with records
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200).withBody("{\"items\":[]}")));
+    replayWriter = new HTTPRecordWriter(config, SCHEMA, null);
+    Assert.assertEquals(1, replayWriter.replayDeadLetters());
+    replayWriter.close(null);
+    Assert.assertEquals(0, deadLetterDirectory.listFiles((dir, name) -> !name.startsWith(".")).length);
+  }
+
+  @Test
+  public void testRequestHeadersAreBuiltOnce() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setRequestHeaders("X-Source:test\nContent-Type:application/vnd.items+json")
+      .build();
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, null);
+    for (int i = 1; i <= 6; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(null);
+
+    // the configured headers are sent with every request, the configured content type is not replaced
+    wireMockRule.verify(3, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withHeader("X-Source", WireMock.equalTo("test"))
+      .withHeader("Content-Type", WireMock.equalTo("application/vnd.items+json"))
+      .withHeader("Request-Method", WireMock.equalTo("POST")));
+  }
+
+  @Test
+  public void testRetriedAttemptSkipsDeliveredRecords() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.matching("(?s).*\"id\":5.*"))
+                       .willReturn(WireMock.aResponse().withStatus(503)));
+    String progressPath = temporaryFolder.newFolder("progress").getAbsolutePath();
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(2)).setWriteJsonAsArray(true)
+      .setProgressPath(progressPath)
+      .setHttpErrorsHandling("2..:Success,.*:Retry and fail")
+      .setMaxRetryDuration(1L)
+      .build();
+
+    // the first attempt fails on the third batch
+    TaskAttemptContext firstAttempt = createTaskAttemptContext(0);
+    HTTPRecordWriter writer = new HTTPRecordWriter(config, SCHEMA, firstAttempt);
+    try {
+      for (int i = 1; i <= 6; i++) {
+        writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+      }
+      Assert.fail("Third batch is expected to fail.");
+    } catch (RuntimeException e) {
+      // expected
+    } finally {
+      writer.close(firstAttempt);
+    }
+
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    TaskAttemptContext secondAttempt = createTaskAttemptContext(1);
+    writer = new HTTPRecordWriter(config, SCHEMA, secondAttempt);
+    for (int i = 1; i <= 6; i++) {
+      writer.write(StructuredRecord.builder(SCHEMA).set("id", i).build(), null);
+    }
+    writer.close(secondAttempt);
+
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":1},{\"id\":2}]")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":3},{\"id\":4}]")));
+    Assert.assertEquals(4, secondAttempt.getCounter(HTTPRecordWriter.COUNTER_GROUP,
+                                                    HTTPRecordWriter.COUNTER_PREVIOUSLY_DELIVERED_RECORDS).getValue());
+
+    TaskProgress.deleteJobDirectory(progressPath, secondAttempt.getConfiguration(), secondAttempt.getJobID());
+    Assert.assertEquals(0, new File(progressPath).listFiles().length);
+  }
+
+  private static TaskAttemptContext createTaskAttemptContext(int attempt) {
+    Counters counters = new Counters();
+    return new TaskAttemptContextImpl(new Configuration(), new TaskAttemptID("test", 1, TaskType.REDUCE, 0, attempt),
+                                      new StatusReporter() {
+      @Override
+      public Counter getCounter(Enum<?> name) {
+        return counters.findCounter(name);
+      }
+
+      @Override
+      public Counter getCounter(String group, String name) {
+        return counters.findCounter(group, name);
+      }
+
+      @Override
+      public void progress() {
+      }
+
+      @Override
+      public float getProgress() {
+        return 0;
+      }
+
+      @Override
+      public void setStatus(String status) {
+      }
+    });
+  }
+
+  private HTTPSinkConfig getConfig(int batchSize) {
+    return new HTTPSinkConfig("test", String.format("http://localhost:%d/items", wireMockRule.port()), "POST",
+                              batchSize, "\n", "JSON", null, "", "UTF-8", true, true,
+                              "2..:Success,.*:Fail", "stopOnError", "exponential", null, 10L, 10, 10,
+                              "false", "none", null, true);
+  }
+}
@@ -19,11 +19,14 @@ package io.cdap.plugin.http.sink.batch;
 import com.google.gson.stream.JsonWriter;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.http.common.http.MessageFormatType;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * Tests for {@link MessageBuffer}
@@ -386,4 +389,91 @@ public class MessageBufferTest {
     Assert.assertEquals(dummyRecordsJsonString[0] + "," + dummyRecordsJsonString[1],
             messageBuffer.getMessage());
   }
+
+  @Test
+  public void testCompactionKeepsLastRecordPerKey() throws Exception {
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(VALID_CONFIG).setWriteJsonAsArray(false).setJsonBatchKey("")
+      .setDelimiterForMessages(",").setCompactionKeyFields("country").build();
+    messageBuffer = new MessageBuffer(
+            config.getMessageFormat(), config.getJsonBatchKey(), config.shouldWriteJsonAsArray(),
+            config.getDelimiterForMessages(), config.getCharset(), config.getBody(), dummySchema,
+            config.getCompactionKeyFields()
+    );
+    int replaced = 0;
+    for (StructuredRecord record : dummyRecords) {
+      replaced += messageBuffer.add(record) ? 1 : 0;
+    }
+
+    Assert.assertEquals(3, replaced);
+    Assert.assertEquals(2, messageBuffer.size());
+    Assert.assertEquals(dummyRecordsJsonString[4] + "," + dummyRecordsJsonString[3], messageBuffer.getMessage());
+
+    messageBuffer.clear();
+    Assert.assertFalse(messageBuffer.add(dummyRecords[0]));
+    Assert.assertEquals(dummyRecordsJsonString[0], messageBuffer.getMessage());
+  }
+
+  @Test
+  public void testGetMessageWithCustomFormat() throws Exception {
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(VALID_CONFIG).setMessageFormat("Custom")
+      .setBody("{\"name\":\"#name\",\"from\":\"#country\"}").setDelimiterForMessages("\n").build();
+    messageBuffer = new MessageBuffer(
+            config.getMessageFormat(), config.getJsonBatchKey(), config.shouldWriteJsonAsArray(),
+            config.getDelimiterForMessages(), config.getCharset(), config.getBody(), dummySchema
+    );
+    messageBuffer.add(dummyRecords[0]);
+    messageBuffer.add(dummyRecords[1]);
+
+    Assert.assertEquals("{\"name\":\"John\",\"from\":\"USA\"}\n{\"name\":\"Jane\",\"from\":\"Canada\"}",
+                        messageBuffer.getMessage());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCustomFormatWithUnknownField() throws Exception {
+    new MessageBuffer(MessageFormatType.CUSTOM, "", false, "\n", "UTF-8", "#unknown", dummySchema);
+  }
+
+  @Test
+  public void testGetMessageBytesWithAvroDatums() throws Exception {
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(VALID_CONFIG).setMessageFormat("Avro Datums").build();
+    messageBuffer = new MessageBuffer(
+            config.getMessageFormat(), config.getJsonBatchKey(), config.shouldWriteJsonAsArray(),
+            config.getDelimiterForMessages(), config.getCharset(), config.getBody(), dummySchema
+    );
+
+    Assert.assertTrue(messageBuffer.isBinary());
+    Assert.assertEquals("avro/binary", messageBuffer.getContentType());
+    Assert.assertArrayEquals(new byte[]{2, 8, 'J', 'o', 'h', 'n', 6, 'U', 'S', 'A', 4, 8, 'J', 'a', 'n', 'e',
+                                        12, 'C', 'a', 'n', 'a', 'd', 'a'},
+                             messageBuffer.getMessageBytes(Arrays.asList(dummyRecords[0], dummyRecords[1])));
+  }
+
+  @Test
+  public void testGetMessageBytesWithAvroContainer() throws Exception {
+    messageBuffer = new MessageBuffer(MessageFormatType.AVRO, "", false, "", "UTF-8", "", dummySchema);
+
+    byte[] message = messageBuffer.getMessageBytes(Arrays.asList(dummyRecords[0], dummyRecords[1]));
+    byte[] datums = new MessageBuffer(MessageFormatType.AVRO_DATUMS, "", false, "", "UTF-8", "", dummySchema)
+      .getMessageBytes(Arrays.asList(dummyRecords[0], dummyRecords[1]));
+
+    Assert.assertArrayEquals(new byte[]{'O', 'b', 'j', 1}, Arrays.copyOf(message, 4));
+    // the header ends with the sync marker, followed by one block of 2 records, their size, datums and sync marker
+    int blockStart = message.length - 16 - datums.length - 2;
+    byte[] sync = Arrays.copyOfRange(message, message.length - 16, message.length);
+    Assert.assertArrayEquals(sync, Arrays.copyOfRange(message, blockStart - 16, blockStart));
+    Assert.assertArrayEquals(new byte[]{4, (byte) (datums.length * 2)},
+                             Arrays.copyOfRange(message, blockStart, blockStart + 2));
+    Assert.assertArrayEquals(datums, Arrays.copyOfRange(message, blockStart + 2, message.length - 16));
+  }
+
+  @Test
+  public void testGetMessageBytesWithMessagePack() throws Exception {
+    messageBuffer = new MessageBuffer(MessageFormatType.MESSAGEPACK, "", false, "", "UTF-8", "", dummySchema);
+
+    Assert.assertEquals("application/x-msgpack", messageBuffer.getContentType());
+    Assert.assertArrayEquals(new byte[]{(byte) 0x91, (byte) 0x83, (byte) 0xa2, 'i', 'd', 1,
+                                        (byte) 0xa4, 'n', 'a', 'm', 'e', (byte) 0xa4, 'J', 'o', 'h', 'n',
+                                        (byte) 0xa7, 'c', 'o', 'u', 'n', 't', 'r', 'y', (byte) 0xa3, 'U', 'S', 'A'},
+                             messageBuffer.getMessageBytes(Collections.singletonList(dummyRecords[0])));
+  }
 }
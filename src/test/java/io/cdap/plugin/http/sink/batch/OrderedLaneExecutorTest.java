@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for {@link OrderedLaneExecutor}
+ */
+public class OrderedLaneExecutorTest {
+
+  @Test
+  public void testTasksOfLaneRunInOrder() throws Exception {
+    OrderedLaneExecutor executor = new OrderedLaneExecutor(2, "test-lane-");
+    List<Integer> completed = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 20; i++) {
+      int task = i;
+      executor.execute(0, () -> {
+        try {
+          // earlier tasks take longer, so they would complete last if they ran concurrently
+          Thread.sleep(20 - task);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        completed.add(task);
+      });
+    }
+    executor.shutdown();
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      expected.add(i);
+    }
+    Assert.assertEquals(expected, completed);
+  }
+
+  @Test
+  public void testLanesRunConcurrently() throws Exception {
+    OrderedLaneExecutor executor = new OrderedLaneExecutor(2, "test-lane-");
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicBoolean released = new AtomicBoolean();
+    executor.execute(0, () -> {
+      try {
+        released.set(latch.await(10, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    executor.execute(1, latch::countDown);
+    executor.shutdown();
+
+    Assert.assertTrue(released.get());
+  }
+}
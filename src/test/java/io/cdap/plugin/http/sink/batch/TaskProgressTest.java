@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.batch;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link TaskProgress}
+ */
+public class TaskProgressTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testProgressStopsAtFirstPendingRecord() throws Exception {
+    String progressPath = temporaryFolder.newFolder("progress").getAbsolutePath();
+    TaskProgress progress = createProgress(progressPath, 0);
+    // batches of two lanes, records 3 and 4 are still buffered in the second lane
+    long first = progress.onBatchDispatched(1);
+    long second = progress.onBatchDispatched(5);
+    progress.checkpoint(2);
+    progress.onBatchCompleted(second);
+    progress.onBatchCompleted(first);
+    progress.close();
+
+    Assert.assertEquals(2, createProgress(progressPath, 1).getPreviouslyDelivered());
+  }
+
+  @Test
+  public void testBatchesCompletedAfterCloseAreIgnored() throws Exception {
+    String progressPath = temporaryFolder.newFolder("progress").getAbsolutePath();
+    TaskProgress progress = createProgress(progressPath, 0);
+    long batch = progress.onBatchDispatched(1);
+    progress.checkpoint(4);
+    progress.close();
+    progress.onBatchCompleted(batch);
+
+    Assert.assertEquals(0, createProgress(progressPath, 1).getPreviouslyDelivered());
+  }
+
+  private static TaskProgress createProgress(String progressPath, int attempt) throws Exception {
+    return new TaskProgress(progressPath, new Configuration(),
+                            new TaskAttemptID("test", 1, TaskType.REDUCE, 0, attempt));
+  }
+}
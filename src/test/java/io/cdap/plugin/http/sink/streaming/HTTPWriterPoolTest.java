@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.sink.streaming;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.http.sink.batch.HTTPSinkConfig;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link HTTPWriterPool}
+ */
+public class HTTPWriterPoolTest {
+  private static final Schema SCHEMA = Schema.recordOf("record",
+                                                       Schema.Field.of("id", Schema.of(Schema.Type.INT)));
+
+  @Rule
+  public WireMockRule wireMockRule = new WireMockRule(0);
+
+  @Test
+  public void testRecordsAreSentByEndOfPartition() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+
+    HTTPWriterPool pool = HTTPWriterPool.getInstance("sent", getConfig(3), SCHEMA);
+    pool.write(Arrays.asList(createRecord(1), createRecord(2), createRecord(3), createRecord(4)).iterator());
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":1},{\"id\":2},{\"id\":3}]")));
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":4}]")));
+
+    // the records of the next micro-batch are not mixed with the ones of the previous one
+    pool.write(Arrays.asList(createRecord(5), createRecord(6)).iterator());
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":5},{\"id\":6}]")));
+  }
+
+  @Test
+  public void testFailureFailsItsOwnPartition() throws Exception {
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .willReturn(WireMock.aResponse().withStatus(200)));
+    WireMock.stubFor(WireMock.post(WireMock.urlMatching("/items.*"))
+                       .withRequestBody(WireMock.matching("(?s).*\"id\":1.*"))
+                       .willReturn(WireMock.aResponse().withStatus(503)));
+
+    HTTPSinkConfig config = HTTPSinkConfig.newBuilder(getConfig(3)).setWriteJsonAsArray(true)
+      .setHttpErrorsHandling("2..:Success,.*:Retry and fail")
+      .setMaxRetryDuration(1L)
+      .build();
+    HTTPWriterPool pool = HTTPWriterPool.getInstance("failed", config, SCHEMA);
+    try {
+      pool.write(Arrays.asList(createRecord(1), createRecord(2)).iterator());
+      Assert.fail("Expected the partition to fail");
+    } catch (RuntimeException e) {
+      // expected
+    }
+
+    pool.write(Arrays.asList(createRecord(3), createRecord(4)).iterator());
+    wireMockRule.verify(1, WireMock.postRequestedFor(WireMock.urlMatching("/items.*"))
+      .withRequestBody(WireMock.equalTo("[{\"id\":3},{\"id\":4}]")));
+  }
+
+  private static StructuredRecord createRecord(int id) {
+    return StructuredRecord.builder(SCHEMA).set("id", id).build();
+  }
+
+  private HTTPSinkConfig getConfig(int batchSize) {
+    HTTPSinkConfig config = new HTTPSinkConfig(
+      "test", String.format("http://localhost:%d/items", wireMockRule.port()), "POST", batchSize, "\n", "JSON",
+      null, "", "UTF-8", true, true, "2..:Success,.*:Fail", "stopOnError", "exponential", null, 10L, 10, 10,
+      "false", "none", null, true);
+    return HTTPSinkConfig.newBuilder(config).setWriteJsonAsArray(true).build();
+  }
+}
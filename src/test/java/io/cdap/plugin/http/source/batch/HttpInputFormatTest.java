@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.plugin.http.source.batch.partition.Partition;
+import io.cdap.plugin.http.source.batch.partition.SplitAssignment;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for {@link HttpInputFormat}
+ */
+public class HttpInputFormatTest {
+  private static final List<Partition> PARTITIONS = Arrays.asList(
+    createPartition("0"), createPartition("1"), createPartition("2"), createPartition("3"), createPartition("4"));
+
+  @Test
+  public void testContiguousSplits() {
+    List<InputSplit> splits = HttpInputFormat.createSplits(PARTITIONS, 2, SplitAssignment.CONTIGUOUS);
+
+    Assert.assertEquals(Arrays.asList(Arrays.asList("0", "1"), Arrays.asList("2", "3"), Arrays.asList("4")),
+                        getIds(splits));
+  }
+
+  @Test
+  public void testInterleavedSplits() {
+    List<InputSplit> splits = HttpInputFormat.createSplits(PARTITIONS, 2, SplitAssignment.INTERLEAVED);
+
+    Assert.assertEquals(Arrays.asList(Arrays.asList("0", "3"), Arrays.asList("1", "4"), Arrays.asList("2")),
+                        getIds(splits));
+  }
+
+  private static Partition createPartition(String id) {
+    return new Partition(ImmutableMap.of("id", id));
+  }
+
+  private static List<List<String>> getIds(List<InputSplit> splits) {
+    List<List<String>> ids = new ArrayList<>();
+    for (InputSplit split : splits) {
+      ids.add(((HttpSplit) split).getPartitions().stream()
+                .map(partition -> partition.getPlaceholders().get("id"))
+                .collect(Collectors.toList()));
+    }
+    return ids;
+  }
+}
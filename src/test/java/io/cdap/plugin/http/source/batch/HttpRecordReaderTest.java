@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link HttpRecordReader}
+ */
+public class HttpRecordReaderTest {
+  private static final Schema SCHEMA = Schema.recordOf("record",
+                                                       Schema.Field.of("id", Schema.of(Schema.Type.STRING)));
+  @Rule
+  public WireMockRule wireMockRule = new WireMockRule(0);
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testPartitionsAreReadConcurrentlyInOrder() throws Exception {
+    List<String> ids = Arrays.asList("id", "1", "2", "3", "4", "5");
+    for (String id : ids.subList(1, ids.size())) {
+      wireMockRule.stubFor(WireMock.get(WireMock.urlEqualTo("/items/" + id))
+                             .willReturn(WireMock.aResponse()
+                                           .withFixedDelay(id.equals("1") ? 300 : 0)
+                                           .withBody("[{\"id\": \"" + id + "\"}]")));
+    }
+    File parameterFile = temporaryFolder.newFile();
+    Files.write(parameterFile.toPath(), ids, StandardCharsets.UTF_8);
+
+    HttpBatchSourceConfig config = HttpBatchSourceConfig.builder()
+      .setReferenceName("test").setUrl("http://localhost:" + wireMockRule.port() + "/items/{id}")
+      .setHttpMethod("GET").setFormat("json").setSchema(SCHEMA.toString()).setAuthType("none")
+      .setErrorHandling("stopOnError").setHttpErrorsHandling("2..:Success,.*:Fail")
+      .setRetryPolicy("exponential").setMaxRetryDuration(10L).setConnectTimeout(10).setReadTimeout(10)
+      .setPaginationType("None").setVerifyHttps("true")
+      .setKeystoreType("Java KeyStore (JKS)").setTrustStoreType("Java KeyStore (JKS)")
+      .setPartitionType("Parameter list").setParameterFilePath(parameterFile.toURI().toString())
+      .setPartitionsPerSplit(5).setPartitionConcurrency(3).build();
+    Configuration conf = new Configuration();
+    conf.set(HttpInputFormatProvider.PROPERTY_CONFIG_JSON, new Gson().toJson(config));
+
+    List<InputSplit> splits = new HttpInputFormat().getSplits(new JobContextImpl(conf, null));
+    Assert.assertEquals(1, splits.size());
+
+    List<String> readIds = new ArrayList<>();
+    try (HttpRecordReader reader = new HttpRecordReader()) {
+      reader.initialize(splits.get(0), new TaskAttemptContextImpl(conf, new TaskAttemptID()));
+      while (reader.nextKeyValue()) {
+        readIds.add(reader.getCurrentValue().getRecord().get("id"));
+      }
+    }
+    Assert.assertEquals(ids.subList(1, ids.size()), readIds);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.cdap.plugin.http.source.batch.partition.PartitionerFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SplitCalibrator}
+ */
+public class SplitCalibratorTest {
+  @Rule
+  public WireMockRule wireMockRule = new WireMockRule(0);
+
+  private HttpBatchSourceConfig createConfig() {
+    return HttpBatchSourceConfig.builder()
+      .setReferenceName("test").setUrl("http://localhost:" + wireMockRule.port() + "/records?shard={shard.index}")
+      .setHttpMethod("GET").setFormat("json").setAuthType("none").setErrorHandling("stopOnError")
+      .setHttpErrorsHandling("2..:Success,.*:Fail").setRetryPolicy("exponential").setMaxRetryDuration(10L)
+      .setConnectTimeout(10).setReadTimeout(10).setPaginationType("None").setVerifyHttps("true")
+      .setKeystoreType("Java KeyStore (JKS)").setTrustStoreType("Java KeyStore (JKS)")
+      .setPartitionType("Shard").setShardCount(100).setAutoTuneSplits(true).build();
+  }
+
+  @Test
+  public void testPlanFollowsRateLimit() {
+    wireMockRule.stubFor(WireMock.get(WireMock.urlMatching("/records.*"))
+                           .willReturn(WireMock.aResponse()
+                                         .withFixedDelay(500)
+                                         .withHeader("X-RateLimit-Limit", "600")
+                                         .withHeader("X-RateLimit-Remaining", "600")
+                                         .withHeader("X-RateLimit-Reset", "60")
+                                         .withBody("[]")));
+    HttpBatchSourceConfig config = createConfig();
+
+    HttpBatchSourceConfig calibrated = new SplitCalibrator(config, null)
+      .calibrate(PartitionerFactory.createInstance(config).getPartitions());
+
+    // 10 requests per second with at least 500ms latency allow at most 5 requests in flight
+    int splits = (100 + calibrated.getPartitionsPerSplit() - 1) / calibrated.getPartitionsPerSplit();
+    Assert.assertTrue("Unexpected splits count " + splits, splits >= 1 && splits <= 5);
+    wireMockRule.verify(SplitCalibrator.CALIBRATION_REQUESTS,
+                        WireMock.getRequestedFor(WireMock.urlMatching("/records.*")));
+  }
+
+  @Test
+  public void testRequestsInFlight() {
+    Assert.assertEquals(SplitCalibrator.MAX_IN_FLIGHT_WITHOUT_RATE_LIMIT,
+                        SplitCalibrator.getRequestsInFlight(null, 200, false));
+    Assert.assertEquals(20, SplitCalibrator.getRequestsInFlight(100.0, 200, false));
+    Assert.assertEquals(10, SplitCalibrator.getRequestsInFlight(100.0, 200, true));
+    Assert.assertEquals(1, SplitCalibrator.getRequestsInFlight(1.0, 200, false));
+  }
+
+  @Test
+  public void testSplitPlan() {
+    // unknown running tasks: every split runs at once, configured concurrency is kept
+    Assert.assertArrayEquals(new int[]{10, 2}, SplitCalibrator.getSplitPlan(100, 20, null, 2));
+    // fewer requests in flight than running tasks
+    Assert.assertArrayEquals(new int[]{20, 1}, SplitCalibrator.getSplitPlan(100, 5, 8, 2));
+    // 4 tasks run 16 splits, 5 partitions of each are requested concurrently
+    Assert.assertArrayEquals(new int[]{7, 5}, SplitCalibrator.getSplitPlan(100, 20, 4, 1));
+    // concurrency is limited by the partitions of a split
+    Assert.assertArrayEquals(new int[]{4, 4}, SplitCalibrator.getSplitPlan(8, 32, 2, 1));
+  }
+
+  @Test
+  public void testFailedCalibrationKeepsConfig() {
+    wireMockRule.stubFor(WireMock.get(WireMock.urlMatching("/records.*"))
+                           .willReturn(WireMock.aResponse().withFault(Fault.EMPTY_RESPONSE)));
+    HttpBatchSourceConfig config = createConfig();
+
+    Assert.assertSame(config, new SplitCalibrator(config)
+      .calibrate(PartitionerFactory.createInstance(config).getPartitions()));
+  }
+}
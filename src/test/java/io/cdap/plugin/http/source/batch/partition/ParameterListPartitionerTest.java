@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link ParameterListPartitioner}
+ */
+public class ParameterListPartitionerTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpBatchSourceConfig.HttpBatchSourceConfigBuilder getConfigBuilder(String url, String... lines)
+    throws Exception {
+    File file = temporaryFolder.newFile();
+    Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+
+    return HttpBatchSourceConfig.builder()
+      .setReferenceName("test").setUrl(url)
+      .setHttpMethod("GET").setFormat("JSON").setAuthType("none").setErrorHandling("stopOnError")
+      .setRetryPolicy("exponential").setMaxRetryDuration(600L).setConnectTimeout(120).setReadTimeout(120)
+      .setPaginationType("None").setVerifyHttps("true").setPartitionType("Parameter list")
+      .setParameterFilePath(file.toURI().toString());
+  }
+
+  @Test
+  public void testParameterTable() throws Exception {
+    HttpBatchSourceConfig config = getConfigBuilder("http://localhost/items/{id}?region={region}",
+                                                    "id,region", "1001,eu", "", "1002, us").build();
+
+    List<Partition> partitions = PartitionerFactory.createInstance(config).getPartitions();
+
+    Assert.assertEquals(2, partitions.size());
+    Assert.assertEquals("http://localhost/items/1001?region=eu", config.forPartition(partitions.get(0)).getUrl());
+    Assert.assertEquals("http://localhost/items/1002?region=us", config.forPartition(partitions.get(1)).getUrl());
+    Assert.assertEquals("http://localhost/items/1001?region=eu", config.forFirstPartition().getUrl());
+  }
+
+  @Test
+  public void testUrlList() throws Exception {
+    HttpBatchSourceConfig config = getConfigBuilder("{url}", "url", "http://localhost/a", "http://localhost/b")
+      .setParameterFileDelimiter("\t").build();
+
+    List<Partition> partitions = PartitionerFactory.createInstance(config).getPartitions();
+
+    Assert.assertEquals(2, partitions.size());
+    Assert.assertEquals("http://localhost/b", config.forPartition(partitions.get(1)).getUrl());
+  }
+
+  @Test
+  public void testValuesAreEncodedInUrl() throws Exception {
+    HttpBatchSourceConfig config = getConfigBuilder("{base}/search?q={query}", "base;query",
+                                                    "http://localhost/api;black & white #1")
+      .setParameterFileDelimiter(";").build();
+
+    Partition partition = PartitionerFactory.createInstance(config).getPartitions().get(0);
+
+    Assert.assertEquals("http://localhost/api/search?q=black%20%26%20white%20%231",
+                        config.forPartition(partition).getUrl());
+    Assert.assertEquals("{\"q\": \"black & white #1\"}", partition.substitute("{\"q\": \"{query}\"}"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMismatchedColumns() throws Exception {
+    HttpBatchSourceConfig config = getConfigBuilder("http://localhost/items/{id}", "id,region", "1001").build();
+
+    PartitionerFactory.createInstance(config).getPartitions();
+  }
+}
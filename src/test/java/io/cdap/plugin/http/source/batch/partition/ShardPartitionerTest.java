@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import io.cdap.cdap.etl.mock.validation.MockFailureCollector;
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests for {@link ShardPartitioner}
+ */
+public class ShardPartitionerTest {
+
+  private static HttpBatchSourceConfig.HttpBatchSourceConfigBuilder getConfigBuilder(String url) {
+    return HttpBatchSourceConfig.builder()
+      .setReferenceName("test").setUrl(url)
+      .setHttpMethod("GET").setFormat("JSON").setAuthType("none").setErrorHandling("stopOnError")
+      .setRetryPolicy("exponential").setMaxRetryDuration(600L).setConnectTimeout(120).setReadTimeout(120)
+      .setPaginationType("None").setVerifyHttps("true").setPartitionType("Shard");
+  }
+
+  @Test
+  public void testPartitionPerShard() {
+    HttpBatchSourceConfig config = getConfigBuilder("http://localhost/records?shard={shard.index}&of={shard.count}")
+      .setShardCount(3).build();
+
+    List<Partition> partitions = PartitionerFactory.createInstance(config).getPartitions();
+
+    Assert.assertEquals(3, partitions.size());
+    Assert.assertEquals("http://localhost/records?shard=0&of=3", config.forPartition(partitions.get(0)).getUrl());
+    Assert.assertEquals("http://localhost/records?shard=2&of=3", config.forPartition(partitions.get(2)).getUrl());
+  }
+
+  @Test
+  public void testValidateShardIndexPlaceholder() {
+    HttpBatchSourceConfig config = getConfigBuilder("http://localhost/records").setShardCount(3).build();
+    MockFailureCollector failureCollector = new MockFailureCollector();
+
+    config.validate(failureCollector);
+
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+  }
+}
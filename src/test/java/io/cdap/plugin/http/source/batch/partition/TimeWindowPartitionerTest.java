@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.http.source.batch.partition;
+
+import io.cdap.plugin.http.source.batch.HttpBatchSourceConfig;
+import io.cdap.plugin.http.source.batch.HttpSplit;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests for {@link TimeWindowPartitioner}
+ */
+public class TimeWindowPartitionerTest {
+
+  private static HttpBatchSourceConfig.HttpBatchSourceConfigBuilder getConfigBuilder() {
+    return HttpBatchSourceConfig.builder()
+      .setReferenceName("test").setUrl("http://localhost/events?from={window.start}&to={window.end}")
+      .setHttpMethod("GET").setFormat("JSON").setAuthType("none").setErrorHandling("stopOnError")
+      .setRetryPolicy("exponential").setMaxRetryDuration(600L).setConnectTimeout(120).setReadTimeout(120)
+      .setPaginationType("None").setVerifyHttps("true").setPartitionType("Time window");
+  }
+
+  @Test
+  public void testWindowsAreTruncatedToEnd() {
+    HttpBatchSourceConfig config = getConfigBuilder()
+      .setWindowStart("2023-01-01T00:00:00Z").setWindowEnd("2023-01-03T12:00:00Z").setWindowSize("P1D").build();
+
+    List<Partition> partitions = PartitionerFactory.createInstance(config).getPartitions();
+
+    Assert.assertEquals(3, partitions.size());
+    Assert.assertEquals("http://localhost/events?from=2023-01-01T00:00:00Z&to=2023-01-02T00:00:00Z",
+                        partitions.get(0).substitute(config.getUrl()));
+    Assert.assertEquals("http://localhost/events?from=2023-01-03T00:00:00Z&to=2023-01-03T12:00:00Z",
+                        partitions.get(2).substitute(config.getUrl()));
+    Assert.assertEquals("http://localhost/events?from=2023-01-02T00%3A00%3A00Z&to=2023-01-03T00%3A00%3A00Z",
+                        config.forPartition(partitions.get(1)).getUrl());
+  }
+
+  @Test
+  public void testWindowFormat() {
+    HttpBatchSourceConfig.HttpBatchSourceConfigBuilder builder = getConfigBuilder()
+      .setWindowStart("2023-01-01T00:00:00Z").setWindowEnd("2023-01-01T02:00:00Z").setWindowSize("PT1H");
+
+    Partition epochPartition = PartitionerFactory.createInstance(builder.setWindowFormat("epochSecond").build())
+      .getPartitions().get(1);
+    Assert.assertEquals("1672534800", epochPartition.getPlaceholders().get("window.start"));
+    Assert.assertEquals("1672538400", epochPartition.getPlaceholders().get("window.end"));
+
+    Partition patternPartition = PartitionerFactory.createInstance(builder.setWindowFormat("yyyy-MM-dd HH").build())
+      .getPartitions().get(1);
+    Assert.assertEquals("2023-01-01 01", patternPartition.getPlaceholders().get("window.start"));
+    Assert.assertEquals("http://localhost/events?from=2023-01-01%2001&to=2023-01-01%2002",
+                        patternPartition.substituteUrl(builder.build().getUrl()));
+
+    Partition offsetPartition = PartitionerFactory.createInstance(builder.setWindowFormat("yyyy-MM-dd HH:mmxxx")
+                                                                    .build()).getPartitions().get(0);
+    Assert.assertEquals("2023-01-01 00:00+00:00", offsetPartition.getPlaceholders().get("window.start"));
+    Assert.assertEquals("http://localhost/events?from=2023-01-01%2000%3A00%2B00%3A00" +
+                          "&to=2023-01-01%2001%3A00%2B00%3A00",
+                        offsetPartition.substituteUrl(builder.build().getUrl()));
+  }
+
+  @Test
+  public void testSplitSerialization() throws Exception {
+    HttpBatchSourceConfig config = getConfigBuilder()
+      .setWindowStart("2023-01-01T00:00:00Z").setWindowEnd("2023-01-05T00:00:00Z").setWindowSize("P1D").build();
+    HttpSplit split = new HttpSplit(PartitionerFactory.createInstance(config).getPartitions(), 3);
+
+    DataOutputBuffer out = new DataOutputBuffer();
+    split.write(out);
+    DataInputBuffer in = new DataInputBuffer();
+    in.reset(out.getData(), out.getLength());
+    HttpSplit deserialized = new HttpSplit();
+    deserialized.readFields(in);
+
+    Assert.assertEquals(split.getPartitions(), deserialized.getPartitions());
+    Assert.assertEquals(4, deserialized.getLength());
+    Assert.assertEquals(3, deserialized.getSplitsCount());
+  }
+}